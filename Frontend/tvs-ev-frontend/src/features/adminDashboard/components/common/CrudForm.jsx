@@ -22,7 +22,7 @@ export default function CrudForm({
   const handleChange = (name) => (e) => {
     let value = e.target.value;
     // Convert "true"/"false" strings to booleans for specific fields
-    if ((name === "isActive" || name === "isDiscountActive") && typeof value === "string") {
+    if ((name === "isActive" || name === "isDiscountActive" || name === "allowOverage") && typeof value === "string") {
       value = value === "true";
     }
     setValues((v) => ({ ...v, [name]: value }));
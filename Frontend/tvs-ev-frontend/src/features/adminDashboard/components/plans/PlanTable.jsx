@@ -46,6 +46,7 @@ export default function PlanTable() {
       isActive: true,
       isDiscountActive: false,
       discountPercentage: 0,
+      allowOverage: false,
       featureIds: [],
     });
     setDialogOpen(true);
@@ -115,6 +116,11 @@ export default function PlanTable() {
       headerName: "Discount Active",
       renderCell: (row) => (row.isDiscountActive ? "Yes" : "No"),
     },
+    {
+      field: "allowOverage",
+      headerName: "Overage",
+      renderCell: (row) => (row.allowOverage ? "Billed" : "Capped"),
+    },
     { field: "description", headerName: "Description" },
     { field: "duration", headerName: "Duration" },
     {
@@ -172,6 +178,12 @@ export default function PlanTable() {
       type: "select",
       options: [true, false],
     },
+    {
+      name: "allowOverage",
+      label: "Bill Usage Beyond Included Units",
+      type: "select",
+      options: [true, false],
+    },
     {
       name: "featureIds",
       label: "Features",
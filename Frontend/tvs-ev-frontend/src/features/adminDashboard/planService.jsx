@@ -29,6 +29,7 @@ export async function updatePlan(planId, payload) {
     isActive: payload.isActive !== undefined ? payload.isActive : true,
     discountPercentage: payload.discountPercentage || 0,
     isDiscountActive: payload.isDiscountActive !== undefined ? payload.isDiscountActive : false,
+    allowOverage: payload.allowOverage !== undefined ? payload.allowOverage : false,
   };
   const res = await axios.put(`${BASE}/${planId}`, body);
   return res.data;
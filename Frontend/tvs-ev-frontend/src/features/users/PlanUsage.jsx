@@ -45,6 +45,9 @@ export default function PlanUsage() {
   const [selectedFeature, setSelectedFeature] = useState(null);
   const [featureHistory, setFeatureHistory] = useState([]);
   const [historyLoading, setHistoryLoading] = useState(false);
+  // Keyset cursor of the next (older) history page; null once the last page is loaded
+  const [historyCursor, setHistoryCursor] = useState(null);
+  const [historyLoadingMore, setHistoryLoadingMore] = useState(false);
   const [subscriptionId, setSubscriptionId] = useState(null);
   const navigate = useNavigate();
   const token = localStorage.getItem("token");
@@ -91,32 +94,85 @@ if (!activeSub?.id) throw new Error("No active subscription found");
   useEffect(() => {
     fetchUserAndUsage();
   }, []);
+  // Live usage over SSE; fetch instead of EventSource so the Authorization header can be sent
+  useEffect(() => {
+    if (!token || !subscriptionId) return;
+    const controller = new AbortController();
+    const applyUpdate = (update) =>
+      setUsageData((prev) => {
+        const i = prev.findIndex((f) => f.featureId === update.featureId);
+        if (i < 0) return [...prev, update];
+        const next = [...prev];
+        next[i] = { ...next[i], ...update };
+        return next;
+      });
+    const stream = async () => {
+      const resp = await fetch(`http://localhost:8083/api/plan-usage/${subscriptionId}/stream`, {
+        headers: { Authorization: `Bearer ${token}`, Accept: "text/event-stream" },
+        signal: controller.signal,
+      });
+      if (!resp.ok || !resp.body) return;
+      const reader = resp.body.pipeThrough(new TextDecoderStream()).getReader();
+      let buffer = "";
+      while (true) {
+        const { value, done } = await reader.read();
+        if (done) break;
+        buffer += value;
+        const events = buffer.split("\n\n");
+        buffer = events.pop();
+        for (const event of events) {
+          const data = event
+            .split("\n")
+            .filter((line) => line.startsWith("data:"))
+            .map((line) => line.slice(5))
+            .join("\n");
+          if (data) applyUpdate(JSON.parse(data));
+        }
+      }
+    };
+    stream().catch((err) => {
+      if (err.name !== "AbortError") console.error(err);
+    });
+    return () => controller.abort();
+  }, [subscriptionId]);
   const handleViewHistory = (feature) => {
     setSelectedFeature(feature);
     fetchFeatureHistory(feature.featureName);
   };
-  const fetchFeatureHistory = async (featureName) => {
+  // Without a cursor loads the newest page; with one, appends the page after it
+  const fetchFeatureHistory = async (featureName, cursor = null) => {
     if (!token || !subscriptionId) return;
-    setHistoryLoading(true);
+    const setBusy = cursor ? setHistoryLoadingMore : setHistoryLoading;
+    setBusy(true);
     try {
+      const query = cursor ? `?cursor=${encodeURIComponent(cursor)}` : "";
       const resp = await fetch(
         `http://localhost:8083/api/plan-usage/${subscriptionId}/feature/${encodeURIComponent(
           featureName
-        )}/history`,
+        )}/history${query}`,
         { headers: { Authorization: `Bearer ${token}` } }
       );
       const history = await resp.json();
-      setFeatureHistory(Array.isArray(history) ? history : []);
+      const rows = Array.isArray(history) ? history : history?.content;
+      const page = Array.isArray(rows) ? rows : [];
+      setFeatureHistory((prev) => (cursor ? [...prev, ...page] : page));
+      setHistoryCursor(history?.nextCursor ?? null);
     } catch (err) {
       console.error(err);
-      setFeatureHistory([]);
+      if (!cursor) setFeatureHistory([]);
     } finally {
-      setHistoryLoading(false);
+      setBusy(false);
+    }
+  };
+  const handleLoadMoreHistory = () => {
+    if (selectedFeature && historyCursor) {
+      fetchFeatureHistory(selectedFeature.featureName, historyCursor);
     }
   };
   const handleCloseHistory = () => {
     setSelectedFeature(null);
     setFeatureHistory([]);
+    setHistoryCursor(null);
   };
   const handleBookFeature = (feature) => {
     const used = Number(feature.usedUnits ?? 0);
@@ -366,6 +422,11 @@ if (!activeSub?.id) throw new Error("No active subscription found");
           )}
         </DialogContent>
         <DialogActions>
+          {historyCursor && !historyLoading && (
+            <Button onClick={handleLoadMoreHistory} disabled={historyLoadingMore} color="primary">
+              {historyLoadingMore ? "Loading..." : "Load more"}
+            </Button>
+          )}
           <Button onClick={handleCloseHistory} color="primary">
             Close
           </Button>
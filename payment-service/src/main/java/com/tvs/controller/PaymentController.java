@@ -2,7 +2,8 @@ package com.tvs.controller;
 
 import com.tvs.entity.Payment;
 import com.tvs.service.PaymentService;
-import com.tvs.util.JwtUtil;
+import com.tvs.security.Identity;
+import com.tvs.security.RequestAuthenticator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
@@ -19,8 +20,8 @@ import java.util.Optional;
 public class PaymentController {
 
     private final PaymentService paymentService;
-    private final JwtUtil jwtUtil; // ✅ To extract email from JWT
-    private final RestTemplate restTemplate = new RestTemplate(); // ✅ To contact User Service
+    private final RequestAuthenticator requestAuthenticator; // ✅ Verifies gateway identity headers
+    private final RestTemplate restTemplate = new RestTemplate(); // ✅ To contact Plan Service
 
     /**
      * ✅ Create Razorpay order for logged-in user using JWT
@@ -33,18 +34,17 @@ public class PaymentController {
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
                 return ResponseEntity.status(401).body(Map.of("error", "Missing Authorization header"));
             }
-            String token = authHeader.substring(7);
-            String email = jwtUtil.extractEmail(token);
-            if (email == null || email.isEmpty()) {
-                return ResponseEntity.status(401).body(Map.of("error", "Invalid token — email not found"));
-            }
-            // get userId
-            ResponseEntity<String> userResp =
-                    restTemplate.getForEntity("http://localhost:9003/api/users/by-email/" + email, String.class);
-            String userId = userResp.getBody();
-            if (userId == null || userId.isEmpty()) {
-                return ResponseEntity.status(404).body(Map.of("error", "User not found for email: " + email));
+            // userId and email come from the gateway's signed identity headers,
+            // so no round trip to user-service is needed here
+            Identity identity;
+            try {
+                identity = requestAuthenticator.authenticate(request::getHeader);
+            } catch (RuntimeException ex) {
+                return ResponseEntity.status(401).body(Map.of("error", "Invalid identity: " + ex.getMessage()));
             }
+            String email = identity.email();
+            String userId = identity.userId().toString();
+
             if (!requestData.containsKey("planId")) {
                 return ResponseEntity.badRequest().body(Map.of("error", "planId is required"));
             }
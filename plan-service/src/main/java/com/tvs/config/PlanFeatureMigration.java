@@ -0,0 +1,79 @@
+package com.tvs.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One-time move of plans.feature_ids (comma-joined UUIDs) into the plan_features table.
+ *
+ * Runs after Hibernate has created plan_features. Each migrated plan gets its
+ * feature_ids set to NULL, so a restart skips it; the column is left in place so
+ * the data can still be inspected or rolled back by hand.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PlanFeatureMigration implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer legacyColumn = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_schema = DATABASE() AND table_name = 'plans' AND column_name = 'feature_ids'",
+                Integer.class);
+        if (legacyColumn == null || legacyColumn == 0) {
+            return;
+        }
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT plan_id, feature_ids FROM plans WHERE feature_ids IS NOT NULL");
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> migrated = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                Object planId = row.get("plan_id");
+                String csv = (String) row.get("feature_ids");
+                Integer existing = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM plan_features WHERE plan_id = ?", Integer.class, planId);
+                if (existing != null && existing == 0 && !csv.isBlank()) {
+                    int position = 0;
+                    for (String id : csv.split(",")) {
+                        inserts.add(new Object[]{planId, position++, toBytes(UUID.fromString(id.trim()))});
+                    }
+                }
+                migrated.add(new Object[]{planId});
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO plan_features (plan_id, position, feature_id) VALUES (?, ?, ?)", inserts);
+            jdbcTemplate.batchUpdate("UPDATE plans SET feature_ids = NULL WHERE plan_id = ?", migrated);
+            log.info("Migrated {} plans ({} feature links) from plans.feature_ids to plan_features",
+                    migrated.size(), inserts.size());
+        });
+    }
+
+    // Hibernate stores UUIDs as binary(16) on MySQL
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
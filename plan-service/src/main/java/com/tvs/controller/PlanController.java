@@ -1,11 +1,14 @@
 package com.tvs.controller;
 
+import com.tvs.dto.PlanRecommendationResponse;
 import com.tvs.dto.PlanRequest;
 import com.tvs.dto.PlanResponse;
 import com.tvs.dto.PricePreviewResponse;
+import com.tvs.dto.RecommendationRequest;
 import com.tvs.service.PlanService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -45,9 +48,25 @@ public class PlanController {
         return ResponseEntity.ok(planService.getActivePlans());
     }
 
-    @GetMapping("/{planId}")
-    public ResponseEntity<PlanResponse> getPlan(@PathVariable UUID planId) {
-        return ResponseEntity.ok(planService.getPlanById(planId));
+    // Batch lookup for other services: POST body is a JSON array of plan ids
+    @PostMapping("/batch")
+    public ResponseEntity<List<PlanResponse>> getPlansByIds(@RequestBody List<UUID> planIds) {
+        return ResponseEntity.ok(planService.getPlansByIds(planIds));
+    }
+
+    // Called by tvs-feature after a feature price change; body is the changed feature ids
+    @PostMapping("/reprice")
+    public ResponseEntity<Map<String, Integer>> repricePlans(@RequestBody List<UUID> featureIds) {
+        int repriced = planService.repriceForFeatures(featureIds);
+        return ResponseEntity.ok(Collections.singletonMap("repricedPlans", repriced));
+    }
+
+    // Served from the plan cache as pre-serialized JSON
+    @GetMapping(value = "/{planId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getPlan(@PathVariable UUID planId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(planService.getPlanJson(planId));
     }
 
     @PutMapping("/{planId}")
@@ -73,6 +92,13 @@ public class PlanController {
         return ResponseEntity.ok(planService.deactivatePlan(planId));
     }
 
+    /** Active plans ranked by projected cost for a usage vector (units per featureId per month) */
+    @PostMapping("/recommendations")
+    public ResponseEntity<List<PlanRecommendationResponse>> recommendPlans(
+            @Valid @RequestBody RecommendationRequest request) {
+        return ResponseEntity.ok(planService.recommendPlans(request));
+    }
+
     @GetMapping("/preview")
     public ResponseEntity<PricePreviewResponse> previewPrice(@RequestParam List<UUID> featureIds) {
         Double totalPrice = planService.calculatePrice(featureIds);
@@ -0,0 +1,25 @@
+package com.tvs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * A plan scored against observed usage. Costs cover the plan's full duration except
+ * monthlyCost; monthlySavings is null when the current plan is unknown or inactive.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanRecommendationResponse {
+    private UUID planId;
+    private String name;
+    private String duration;
+    private Double planPrice;
+    private Double projectedOverage;
+    private Double projectedCost;
+    private Double monthlyCost;
+    private Double monthlySavings;
+}
@@ -27,4 +27,6 @@ public class PlanRequest {
 
 
     private Boolean isDiscountActive;
+
+    private Boolean allowOverage;
 }
@@ -22,4 +22,5 @@ public class PlanResponse {
     private Double discountPercentage;
     private Boolean isDiscountActive;
     private Boolean isActive;
+    private Boolean allowOverage;
 }
@@ -0,0 +1,22 @@
+package com.tvs.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Observed usage to score plans against: units per featureId per month.
+ */
+@Data
+public class RecommendationRequest {
+
+    @NotNull(message = "monthlyUsage is required")
+    private Map<UUID, Double> monthlyUsage;
+
+    // Plan the caller is on now; savings are reported relative to it
+    private UUID currentPlanId;
+
+    private Integer limit;
+}
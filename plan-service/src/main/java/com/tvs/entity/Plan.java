@@ -1,11 +1,13 @@
 package com.tvs.entity;
 
-import com.tvs.util.UUIDListConverter;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -27,8 +29,17 @@ public class Plan {
     @Enumerated(EnumType.STRING)
     private Duration duration;
 
-    @Convert(converter = UUIDListConverter.class)
-    private List<UUID> featureIds;
+    // One row per (plan, feature); indexed on feature_id for "plans containing feature X".
+    // SUBSELECT loads the features of every plan in a result list with one extra query.
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(
+            name = "plan_features",
+            joinColumns = @JoinColumn(name = "plan_id"),
+            indexes = @Index(name = "idx_plan_features_feature_id", columnList = "feature_id"))
+    @Column(name = "feature_id", nullable = false)
+    @OrderColumn(name = "position")
+    @Fetch(FetchMode.SUBSELECT)
+    private List<UUID> featureIds = new ArrayList<>();
 
     private LocalDateTime createdAt;
     private LocalDateTime expiresAt;
@@ -47,6 +58,10 @@ public class Plan {
 
     private Boolean isActive;
 
+    // Lets subscribers keep consuming past a feature's included units; the excess is billed
+    // at month end by usagemanager's overage run. Null on plans created before the flag.
+    private Boolean allowOverage;
+
     public enum Duration {
         MONTH, QUARTER, YEAR
     }
@@ -2,7 +2,19 @@ package com.tvs.repository;
 
 import com.tvs.entity.Plan;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface PlanRepository extends JpaRepository<Plan, UUID> {
+
+    // Served from idx_plan_features_feature_id
+    @Query("SELECT DISTINCT p FROM Plan p JOIN p.featureIds f WHERE f = :featureId")
+    List<Plan> findByFeatureId(@Param("featureId") UUID featureId);
+
+    @Query("SELECT DISTINCT p FROM Plan p JOIN p.featureIds f WHERE f IN :featureIds")
+    List<Plan> findByFeatureIdIn(@Param("featureIds") Collection<UUID> featureIds);
 }
@@ -0,0 +1,157 @@
+package com.tvs.service;
+
+import com.tvs.dto.FeatureResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory replica of the active feature catalog.
+ *
+ * Polls tvs-feature's /active endpoint with If-None-Match, so an unchanged catalog
+ * costs a 304 and nothing else. Reads are served from an immutable snapshot with no
+ * network call; if the last successful poll is older than feature.catalog.max-staleness-ms
+ * the lookup falls back to the batch endpoint instead.
+ *
+ * Exposed on /actuator/metrics as plan.feature.catalog.*.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FeatureCatalog implements MeterBinder {
+
+    private final WebClient webClient;
+    private final FeatureClientService featureClientService;
+
+    @Value("${feature.service.url}")
+    private String featureServiceUrl;
+
+    @Value("${feature.catalog.max-staleness-ms:60000}")
+    private long maxStalenessMs;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private Timer refreshTimer;
+
+    /**
+     * Active features for the given ids, in the given order. Ids that are not in the
+     * active catalog are skipped, as with {@link FeatureClientService#getFeaturesByIds}.
+     */
+    public List<FeatureResponse> getFeaturesByIds(List<UUID> featureIds) {
+        if (featureIds == null || featureIds.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        if (!isFresh(current)) {
+            return featureClientService.getFeaturesByIds(featureIds);
+        }
+        List<FeatureResponse> features = new ArrayList<>(featureIds.size());
+        for (UUID id : featureIds) {
+            FeatureResponse feature = current.features.get(id);
+            if (feature != null) {
+                features.add(feature);
+            }
+        }
+        return features;
+    }
+
+    /** Current snapshot version (tvs-feature ETag), or null before the first successful load. */
+    public String getVersion() {
+        return snapshot.etag;
+    }
+
+    @Scheduled(fixedDelayString = "${feature.catalog.refresh-interval-ms:5000}")
+    public void refresh() {
+        long start = System.nanoTime();
+        try {
+            poll();
+        } catch (Exception ex) {
+            log.warn("Feature catalog refresh failed, keeping version {}: {}", snapshot.etag, ex.getMessage());
+        } finally {
+            if (refreshTimer != null) {
+                refreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void poll() {
+        Snapshot current = snapshot;
+        ResponseEntity<FeatureResponse[]> response = webClient.get()
+                .uri(featureServiceUrl + "/api/v1/features/active")
+                .headers(h -> {
+                    if (current.etag != null) h.setIfNoneMatch(current.etag);
+                })
+                .retrieve()
+                .toEntity(FeatureResponse[].class)
+                .block();
+
+        if (response == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            snapshot = new Snapshot(current.features, current.etag, now);
+            return;
+        }
+
+        Map<UUID, FeatureResponse> features = new HashMap<>();
+        FeatureResponse[] body = response.getBody();
+        if (body != null) {
+            for (FeatureResponse f : body) {
+                if (Boolean.TRUE.equals(f.getIsActive())) {
+                    features.put(f.getFeatureId(), f);
+                }
+            }
+        }
+        String etag = response.getHeaders().getFirst(HttpHeaders.ETAG);
+        snapshot = new Snapshot(Map.copyOf(features), etag, now);
+        if (!Objects.equals(etag, current.etag)) {
+            log.info("Feature catalog updated to version {} ({} active features)", etag, features.size());
+        }
+    }
+
+    private boolean isFresh(Snapshot s) {
+        return s.refreshedAtMillis > 0 && System.currentTimeMillis() - s.refreshedAtMillis <= maxStalenessMs;
+    }
+
+    private double ageSeconds() {
+        long refreshedAt = snapshot.refreshedAtMillis;
+        return refreshedAt == 0 ? Double.NaN : (System.currentTimeMillis() - refreshedAt) / 1000.0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        refreshTimer = Timer.builder("plan.feature.catalog.refresh")
+                .description("Time taken to poll tvs-feature for catalog changes")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        Gauge.builder("plan.feature.catalog.size", this, c -> c.snapshot.features.size())
+                .description("Active features held in the local replica")
+                .register(registry);
+        Gauge.builder("plan.feature.catalog.age.seconds", this, FeatureCatalog::ageSeconds)
+                .description("Seconds since the replica was last confirmed current")
+                .register(registry);
+    }
+
+    private record Snapshot(Map<UUID, FeatureResponse> features, String etag, long refreshedAtMillis) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), null, 0);
+    }
+}
@@ -15,7 +15,7 @@ import java.util.stream.Collectors;
 
 /**
  * Client service to communicate with Feature Microservice using WebClient.
- * Fetches active features and filters them by the requested featureIds.
+ * Fetches only the requested features through the batch endpoint.
  */
 @Service
 @RequiredArgsConstructor
@@ -27,15 +27,19 @@ public class FeatureClientService {
     private String featureServiceUrl;
 
     /**
-     * Fetches active features from Feature Service and filters those matching the given featureIds.
+     * Fetches the given features from Feature Service in one batch call and keeps the active ones.
      *
      * @param featureIds List of UUID from Plan
      * @return List of FeatureResponse DTOs matching featureIds and active status
      */
     public List<FeatureResponse> getFeaturesByIds(List<UUID> featureIds) {
-        String url = featureServiceUrl + "/api/v1/features/active";
-        Mono<FeatureResponse[]> responseMono = webClient.get()
+        if (featureIds == null || featureIds.isEmpty()) {
+            return List.of();
+        }
+        String url = featureServiceUrl + "/api/v1/features/batch";
+        Mono<FeatureResponse[]> responseMono = webClient.post()
                 .uri(url)
+                .bodyValue(featureIds)
                 .retrieve()
                 .bodyToMono(FeatureResponse[].class);
 
@@ -45,7 +49,7 @@ public class FeatureClientService {
             return List.of();
         }
         return Arrays.stream(features)
-                .filter(f -> featureIds.contains(f.getFeatureId()) && Boolean.TRUE.equals(f.getIsActive()))
+                .filter(f -> Boolean.TRUE.equals(f.getIsActive()))
                 .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,182 @@
+package com.tvs.service;
+
+import com.tvs.dto.FeatureResponse;
+import com.tvs.dto.PlanRecommendationResponse;
+import com.tvs.dto.PlanResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Active plans laid out as dense vectors for scoring against a usage vector.
+ *
+ * Every feature of any active plan gets a slot; each plan stores its price, its length in
+ * months and the units it includes per slot for its whole duration. Scoring a request maps
+ * the usage onto slots once, then costs each plan as price plus overage (units beyond the
+ * included ones at pricePerUnit, all units for features the plan lacks), with no lookups
+ * or allocation per plan. The index is immutable and swapped whole by {@link #rebuild},
+ * which PlanService runs in the background after every plan write, so readers keep the
+ * previous index until the new one is ready.
+ *
+ * Exposed on /actuator/metrics as plan.recommendation.*.
+ */
+@Component
+public class PlanRecommendationIndex implements MeterBinder {
+
+    private volatile Snapshot snapshot;
+    private volatile boolean stale;
+
+    private Timer scoreTimer;
+
+    private record Snapshot(Map<UUID, Integer> slots, double[] unitPrices,
+                            PlanResponse[] plans, double[] prices, int[] months,
+                            double[] included, String catalogVersion) {
+    }
+
+    /** True if the index is current and was built from the given feature catalog version. */
+    public boolean isBuiltFor(String catalogVersion) {
+        Snapshot current = snapshot;
+        return !stale && current != null && Objects.equals(current.catalogVersion, catalogVersion);
+    }
+
+    /** Marks the index out of date; it keeps serving until the next {@link #rebuild}. */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /** Replaces the index with the given active plans (features already multiplied by duration). */
+    public void rebuild(List<PlanResponse> activePlans, String catalogVersion) {
+        Map<UUID, Integer> slots = new HashMap<>();
+        List<Double> unitPrices = new ArrayList<>();
+        for (PlanResponse plan : activePlans) {
+            for (FeatureResponse feature : plan.getFeatures()) {
+                if (slots.putIfAbsent(feature.getFeatureId(), slots.size()) == null) {
+                    unitPrices.add(feature.getPricePerUnit() != null ? feature.getPricePerUnit() : 0.0);
+                }
+            }
+        }
+
+        int width = slots.size();
+        PlanResponse[] plans = activePlans.toArray(new PlanResponse[0]);
+        double[] prices = new double[plans.length];
+        int[] months = new int[plans.length];
+        double[] included = new double[plans.length * width];
+        for (int p = 0; p < plans.length; p++) {
+            PlanResponse plan = plans[p];
+            prices[p] = plan.getDiscountedPrice() != null ? plan.getDiscountedPrice()
+                    : plan.getTotalPrice() != null ? plan.getTotalPrice() : 0.0;
+            months[p] = durationMonths(plan.getDuration());
+            for (FeatureResponse feature : plan.getFeatures()) {
+                Integer units = feature.getDefaultIncludedUnits();
+                included[p * width + slots.get(feature.getFeatureId())] += units != null ? units : 0;
+            }
+        }
+        stale = false;
+        snapshot = new Snapshot(Map.copyOf(slots), unitPrices.stream().mapToDouble(Double::doubleValue).toArray(),
+                plans, prices, months, included, catalogVersion);
+    }
+
+    /**
+     * Active plans ordered by projected monthly cost for the given usage (units per featureId
+     * per month), cheapest first, at most limit of them. Features no active plan offers are
+     * ignored, as they cost the same on every plan.
+     */
+    public List<PlanRecommendationResponse> recommend(Map<UUID, Double> monthlyUsage, UUID currentPlanId, int limit) {
+        long start = System.nanoTime();
+        Snapshot s = snapshot;
+        if (s == null || s.plans.length == 0) {
+            return List.of();
+        }
+
+        int width = s.unitPrices.length;
+        int[] usedSlots = new int[monthlyUsage.size()];
+        double[] usedUnits = new double[monthlyUsage.size()];
+        int n = 0;
+        for (Map.Entry<UUID, Double> entry : monthlyUsage.entrySet()) {
+            Integer slot = s.slots.get(entry.getKey());
+            if (slot != null && entry.getValue() != null && entry.getValue() > 0) {
+                usedSlots[n] = slot;
+                usedUnits[n++] = entry.getValue();
+            }
+        }
+
+        double[] overage = new double[s.plans.length];
+        double[] monthly = new double[s.plans.length];
+        Double currentMonthly = null;
+        for (int p = 0; p < s.plans.length; p++) {
+            int m = s.months[p];
+            int row = p * width;
+            double extra = 0;
+            for (int i = 0; i < n; i++) {
+                double over = usedUnits[i] * m - s.included[row + usedSlots[i]];
+                if (over > 0) {
+                    extra += over * s.unitPrices[usedSlots[i]];
+                }
+            }
+            overage[p] = extra;
+            monthly[p] = (s.prices[p] + extra) / m;
+            if (s.plans[p].getPlanId().equals(currentPlanId)) {
+                currentMonthly = monthly[p];
+            }
+        }
+
+        Integer[] order = new Integer[s.plans.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingDouble(p -> monthly[p]));
+
+        List<PlanRecommendationResponse> result = new ArrayList<>(Math.min(limit, order.length));
+        for (int k = 0; k < order.length && result.size() < limit; k++) {
+            int p = order[k];
+            PlanResponse plan = s.plans[p];
+            result.add(new PlanRecommendationResponse(
+                    plan.getPlanId(),
+                    plan.getName(),
+                    plan.getDuration(),
+                    round(s.prices[p]),
+                    round(overage[p]),
+                    round(s.prices[p] + overage[p]),
+                    round(monthly[p]),
+                    currentMonthly != null ? round(currentMonthly - monthly[p]) : null));
+        }
+        if (scoreTimer != null) {
+            scoreTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    private static int durationMonths(String duration) {
+        if (duration == null) return 1;
+        return switch (duration) {
+            case "QUARTER" -> 3;
+            case "YEAR" -> 12;
+            default -> 1;
+        };
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        scoreTimer = Timer.builder("plan.recommendation.score")
+                .description("Time to score all active plans against a usage vector")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        Gauge.builder("plan.recommendation.plans", this, i -> i.snapshot == null ? 0 : i.snapshot.plans.length)
+                .description("Active plans in the recommendation index")
+                .register(registry);
+    }
+}
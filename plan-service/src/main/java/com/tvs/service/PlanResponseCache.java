@@ -0,0 +1,157 @@
+package com.tvs.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvs.cache.CacheStats;
+import com.tvs.dto.PlanResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of fully assembled plans, keyed by planId, holding both the
+ * PlanResponse and its JSON bytes so GET /api/v1/plans/{id} skips the DB, the
+ * feature lookup and serialization on a hit.
+ *
+ * PlanService invalidates an entry on every write to that plan. Entries are also
+ * tagged with the feature catalog version they were built from and treated as a
+ * miss once the catalog moves on, so feature edits are picked up without a sweep.
+ *
+ * Exposed on /actuator/metrics as plan.cache.* and plan.lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class PlanResponseCache implements MeterBinder {
+
+    private final ObjectMapper objectMapper;
+    private final FeatureCatalog featureCatalog;
+
+    private final Map<UUID, CachedPlan> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation; a load that started before it is not cached,
+    // so a concurrent read can never put back the plan a write just replaced
+    private final AtomicLong generation = new AtomicLong();
+
+    private final CacheStats stats = new CacheStats("plan.cache");
+
+    private Timer lookupTimer;
+
+    @Value("${plan.cache.max-size:1000}")
+    private int maxSize;
+
+    /**
+     * Returns the cached plan, or assembles it with the loader and caches the result.
+     * Exceptions from the loader (e.g. PlanNotFoundException) propagate and nothing is cached.
+     */
+    public CachedPlan getOrLoad(UUID planId, Function<UUID, PlanResponse> loader) {
+        long start = System.nanoTime();
+        try {
+            String catalogVersion = featureCatalog.getVersion();
+            CachedPlan cached = entries.get(planId);
+            if (cached != null && Objects.equals(cached.catalogVersion, catalogVersion)) {
+                stats.hit();
+                return cached;
+            }
+            stats.miss();
+
+            long gen = generation.get();
+            PlanResponse response = loader.apply(planId);
+            CachedPlan loaded = new CachedPlan(response, toJson(response), catalogVersion);
+            if (generation.get() == gen) {
+                put(planId, loaded);
+            }
+            return loaded;
+        } finally {
+            if (lookupTimer != null) {
+                lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Batch variant of {@link #getOrLoad}: cached plans are served from memory and all
+     * misses are handed to the loader in one call. Ids the loader does not return are
+     * left out of the result.
+     */
+    public Map<UUID, PlanResponse> getAll(Collection<UUID> planIds,
+                                          Function<Set<UUID>, Map<UUID, PlanResponse>> loader) {
+        String catalogVersion = featureCatalog.getVersion();
+        Map<UUID, PlanResponse> result = new LinkedHashMap<>();
+        Set<UUID> missing = new LinkedHashSet<>();
+        for (UUID planId : planIds) {
+            CachedPlan cached = entries.get(planId);
+            if (cached != null && Objects.equals(cached.catalogVersion, catalogVersion)) {
+                stats.hit();
+                result.put(planId, cached.response);
+            } else if (missing.add(planId)) {
+                stats.miss();
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long gen = generation.get();
+        Map<UUID, PlanResponse> loaded = loader.apply(missing);
+        boolean cacheable = generation.get() == gen;
+        for (UUID planId : missing) {
+            PlanResponse response = loaded.get(planId);
+            if (response == null) continue;
+            result.put(planId, response);
+            if (cacheable) {
+                put(planId, new CachedPlan(response, toJson(response), catalogVersion));
+            }
+        }
+        return result;
+    }
+
+    public void invalidate(UUID planId) {
+        generation.incrementAndGet();
+        entries.remove(planId);
+    }
+
+    private void put(UUID planId, CachedPlan plan) {
+        if (entries.size() >= maxSize && !entries.containsKey(planId)) {
+            stats.shed(entries, maxSize);
+        }
+        entries.put(planId, plan);
+    }
+
+    private byte[] toJson(PlanResponse response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize plan " + response.getPlanId(), e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        lookupTimer = Timer.builder("plan.lookup")
+                .description("Time to serve a plan by id, cache hit or miss")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        stats.bindTo(registry, entries, "Plan cache lookups", "Plans currently cached");
+    }
+
+    /**
+     * A cached plan. The response is shared between callers and must not be modified.
+     */
+    public record CachedPlan(PlanResponse response, byte[] json, String catalogVersion) {
+    }
+}
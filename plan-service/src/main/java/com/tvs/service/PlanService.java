@@ -1,19 +1,40 @@
 package com.tvs.service;
 
 import com.tvs.dto.FeatureResponse;
+import com.tvs.dto.PlanRecommendationResponse;
 import com.tvs.dto.PlanRequest;
 import com.tvs.dto.PlanResponse;
+import com.tvs.dto.RecommendationRequest;
 import com.tvs.entity.Plan;
 import com.tvs.exception.PlanNotFoundException;
 import com.tvs.repository.PlanRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PlanService {
@@ -23,8 +44,23 @@ public class PlanService {
 	}
 
 
+    private static final long FIRST_INDEX_WAIT_SECONDS = 5;
+
     private final PlanRepository planRepository;
     private final FeatureClientService featureClientService;
+    // Read paths use the local replica; pricing on create/update asks tvs-feature directly
+    private final FeatureCatalog featureCatalog;
+    private final PlanResponseCache planCache;
+    private final TransactionTemplate transactionTemplate;
+    private final PlanRecommendationIndex recommendationIndex;
+
+    private final ExecutorService indexRebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "plan-recommendation-index");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final CompletableFuture<Void> indexBuilt = new CompletableFuture<>();
 
     public PlanResponse createPlan(PlanRequest planRequest) {
         Plan plan = new Plan();
@@ -45,34 +81,18 @@ public class PlanService {
         // Set discount fields
         plan.setDiscountPercentage(planRequest.getDiscountPercentage());
         plan.setIsDiscountActive(planRequest.getIsDiscountActive());
+        plan.setAllowOverage(Boolean.TRUE.equals(planRequest.getAllowOverage()));
 
         List<FeatureResponse> features = featureClientService.getFeaturesByIds(plan.getFeatureIds());
 
-        double monthlyFee = features.stream()
-                .mapToDouble(FeatureResponse::getPricePerUnit)
-                .sum();
-
         int multiplier = getDurationMultiplier(durationEnum);
-
-        double originalPrice = monthlyFee * multiplier;
-
-        if ("Free".equalsIgnoreCase(plan.getName())) {
-            originalPrice = 0.0;
-        }
-
-        plan.setTotalPrice(originalPrice);
-
-        double discountedPrice = originalPrice;
-        if (Boolean.TRUE.equals(plan.getIsDiscountActive()) && plan.getDiscountPercentage() != null) {
-            discountedPrice = Math.max(0, originalPrice - (originalPrice * plan.getDiscountPercentage() / 100));
-        }
-
-        plan.setDiscountedPrice(discountedPrice);
+        applyPricing(plan, features);
 
         plan.setCreatedAt(LocalDateTime.now());
         plan.setExpiresAt(plan.getCreatedAt().plusMonths(multiplier));
 
         plan = planRepository.save(plan);
+        refreshRecommendationIndex();
 
         List<FeatureResponse> adjustedFeatures = multiplyFeatureUnits(features, multiplier);
 
@@ -105,31 +125,18 @@ public class PlanService {
         if (planRequest.getIsDiscountActive() != null) {
             plan.setIsDiscountActive(planRequest.getIsDiscountActive());
         }
+        if (planRequest.getAllowOverage() != null) {
+            plan.setAllowOverage(planRequest.getAllowOverage());
+        }
 
         List<FeatureResponse> features = featureClientService.getFeaturesByIds(plan.getFeatureIds());
 
         int multiplier = getDurationMultiplier(plan.getDuration());
-
-        double monthlyFee = features.stream()
-                .mapToDouble(FeatureResponse::getPricePerUnit)
-                .sum();
-
-        double originalPrice = monthlyFee * multiplier;
-
-        if ("Free".equalsIgnoreCase(plan.getName())) {
-            originalPrice = 0.0;
-        }
-
-        plan.setTotalPrice(originalPrice);
-
-        double discountedPrice = originalPrice;
-        if (Boolean.TRUE.equals(plan.getIsDiscountActive()) && plan.getDiscountPercentage() != null) {
-            discountedPrice = Math.max(0, originalPrice - (originalPrice * plan.getDiscountPercentage() / 100));
-        }
-
-        plan.setDiscountedPrice(discountedPrice);
+        applyPricing(plan, features);
 
         plan = planRepository.save(plan);
+        planCache.invalidate(planId);
+        refreshRecommendationIndex();
 
         List<FeatureResponse> adjustedFeatures = multiplyFeatureUnits(features, multiplier);
 
@@ -137,9 +144,39 @@ public class PlanService {
     }
 
     public PlanResponse getPlanById(UUID planId) {
+        return planCache.getOrLoad(planId, this::loadPlan).response();
+    }
+
+    // Same plan as getPlanById, already serialized
+    public byte[] getPlanJson(UUID planId) {
+        return planCache.getOrLoad(planId, this::loadPlan).json();
+    }
+
+    /**
+     * Plans for a set of ids in one call; unknown ids are skipped. Cached plans are
+     * served from memory and the rest are loaded with a single query.
+     */
+    public List<PlanResponse> getPlansByIds(Collection<UUID> planIds) {
+        if (planIds == null || planIds.isEmpty()) {
+            return List.of();
+        }
+        Set<UUID> distinctIds = new LinkedHashSet<>(planIds);
+        Map<UUID, PlanResponse> plans = planCache.getAll(distinctIds, this::loadPlans);
+        return distinctIds.stream()
+                .map(plans::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private Map<UUID, PlanResponse> loadPlans(Set<UUID> planIds) {
+        return planRepository.findAllById(planIds).stream()
+                .collect(Collectors.toMap(Plan::getPlanId, this::mapToPlanResponseWithFeatures));
+    }
+
+    private PlanResponse loadPlan(UUID planId) {
         Plan plan = planRepository.findById(planId)
                 .orElseThrow(() -> new PlanNotFoundException("Plan not found with id: " + planId));
-        List<FeatureResponse> features = featureClientService.getFeaturesByIds(plan.getFeatureIds());
+        List<FeatureResponse> features = featureCatalog.getFeaturesByIds(plan.getFeatureIds());
 
         int multiplier = getDurationMultiplier(plan.getDuration());
         List<FeatureResponse> adjustedFeatures = multiplyFeatureUnits(features, multiplier);
@@ -167,6 +204,8 @@ public class PlanService {
             throw new PlanNotFoundException("Plan not found with id: " + planId);
         }
         planRepository.deleteById(planId);
+        planCache.invalidate(planId);
+        refreshRecommendationIndex();
     }
 
     public PlanResponse activatePlan(UUID planId) {
@@ -174,7 +213,9 @@ public class PlanService {
                 .orElseThrow(() -> new PlanNotFoundException("Plan not found with id: " + planId));
         plan.setIsActive(true);
         plan = planRepository.save(plan);
-        List<FeatureResponse> features = featureClientService.getFeaturesByIds(plan.getFeatureIds());
+        planCache.invalidate(planId);
+        refreshRecommendationIndex();
+        List<FeatureResponse> features = featureCatalog.getFeaturesByIds(plan.getFeatureIds());
 
         int multiplier = getDurationMultiplier(plan.getDuration());
         List<FeatureResponse> adjustedFeatures = multiplyFeatureUnits(features, multiplier);
@@ -187,7 +228,9 @@ public class PlanService {
                 .orElseThrow(() -> new PlanNotFoundException("Plan not found with id: " + planId));
         plan.setIsActive(false);
         plan = planRepository.save(plan);
-        List<FeatureResponse> features = featureClientService.getFeaturesByIds(plan.getFeatureIds());
+        planCache.invalidate(planId);
+        refreshRecommendationIndex();
+        List<FeatureResponse> features = featureCatalog.getFeaturesByIds(plan.getFeatureIds());
 
         int multiplier = getDurationMultiplier(plan.getDuration());
         List<FeatureResponse> adjustedFeatures = multiplyFeatureUnits(features, multiplier);
@@ -195,6 +238,116 @@ public class PlanService {
         return toPlanResponse(plan, adjustedFeatures);
     }
 
+    /**
+     * Recomputes totalPrice/discountedPrice for every plan that includes one of the
+     * given features, in a single batched transaction. Called by tvs-feature when a
+     * feature's price or active flag changes. Returns the number of plans repriced.
+     */
+    public int repriceForFeatures(Collection<UUID> featureIds) {
+        if (featureIds == null || featureIds.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        // Pull the change into the replica now rather than at the next poll
+        featureCatalog.refresh();
+
+        // Collect the features of every affected plan and fetch them before opening the
+        // write transaction, so the feature-service call holds no connection or row locks
+        Set<UUID> allFeatureIds = transactionTemplate.execute(status ->
+                planRepository.findByFeatureIdIn(featureIds).stream()
+                        .flatMap(plan -> plan.getFeatureIds().stream())
+                        .collect(Collectors.toCollection(LinkedHashSet::new)));
+        if (allFeatureIds.isEmpty()) {
+            return 0;
+        }
+        Map<UUID, FeatureResponse> features = featureClientService.getFeaturesByIds(List.copyOf(allFeatureIds)).stream()
+                .collect(Collectors.toMap(FeatureResponse::getFeatureId, f -> f, (a, b) -> a));
+
+        List<Plan> plans = transactionTemplate.execute(status -> {
+            List<Plan> affected = new ArrayList<>();
+            for (Plan plan : planRepository.findByFeatureIdIn(featureIds)) {
+                // A plan given new features since the read above was priced by its own update
+                if (!allFeatureIds.containsAll(plan.getFeatureIds())) {
+                    continue;
+                }
+                List<FeatureResponse> planFeatures = plan.getFeatureIds().stream()
+                        .map(features::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+                applyPricing(plan, planFeatures);
+                affected.add(plan);
+            }
+            return planRepository.saveAll(affected);
+        });
+
+        // Evict only after commit so a concurrent read cannot cache the old price
+        plans.forEach(plan -> planCache.invalidate(plan.getPlanId()));
+        refreshRecommendationIndex();
+
+        log.info("Repriced {} plans for features {} in {} ms",
+                plans.size(), featureIds, (System.nanoTime() - start) / 1_000_000);
+        return plans.size();
+    }
+
+    /**
+     * Active plans ranked by projected monthly cost (price plus overage at pricePerUnit)
+     * for the given usage, cheapest first. Served from the in-memory plan index; a stale
+     * index keeps serving while its rebuild runs in the background.
+     */
+    public List<PlanRecommendationResponse> recommendPlans(RecommendationRequest request) {
+        if (!recommendationIndex.isBuiltFor(featureCatalog.getVersion())) {
+            refreshRecommendationIndex();
+        }
+        if (!indexBuilt.isDone()) {
+            awaitFirstIndex();
+        }
+        int limit = request.getLimit() != null && request.getLimit() > 0 ? request.getLimit() : 5;
+        return recommendationIndex.recommend(request.getMonthlyUsage(), request.getCurrentPlanId(), limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildRecommendationIndex() {
+        refreshRecommendationIndex();
+    }
+
+    @PreDestroy
+    public void stopRecommendationIndex() {
+        indexRebuilder.shutdownNow();
+    }
+
+    // After a plan write or when the index is stale. Rebuilds run one at a time on the
+    // rebuilder thread; requests made while one is already queued share it.
+    private void refreshRecommendationIndex() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            indexRebuilder.execute(this::rebuildRecommendationIndex);
+        }
+    }
+
+    private void rebuildRecommendationIndex() {
+        // Cleared before reading, so a write committed during the read queues another rebuild
+        rebuildQueued.set(false);
+        try {
+            String catalogVersion = featureCatalog.getVersion();
+            recommendationIndex.rebuild(getActivePlans(), catalogVersion);
+            indexBuilt.complete(null);
+        } catch (Exception ex) {
+            // Stale until the next write or request queues a rebuild
+            recommendationIndex.invalidate();
+            log.warn("Plan recommendation index not rebuilt: {}", ex.getMessage());
+        }
+    }
+
+    // Only until the index exists for the first time, shortly after startup
+    private void awaitFirstIndex() {
+        try {
+            indexBuilt.get(FIRST_INDEX_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Plan recommendation index not built yet, serving an empty ranking");
+        }
+    }
+
     public Double calculatePrice(List<UUID> featureIds) {
         List<FeatureResponse> features = featureClientService.getFeaturesByIds(featureIds);
         return features.stream()
@@ -214,12 +367,13 @@ public class PlanService {
         response.setDiscountPercentage(plan.getDiscountPercentage());
         response.setIsDiscountActive(plan.getIsDiscountActive());
         response.setIsActive(plan.getIsActive());
+        response.setAllowOverage(Boolean.TRUE.equals(plan.getAllowOverage()));
 
         return response;
     }
 
     private PlanResponse mapToPlanResponseWithFeatures(Plan plan) {
-        List<FeatureResponse> features = featureClientService.getFeaturesByIds(plan.getFeatureIds());
+        List<FeatureResponse> features = featureCatalog.getFeaturesByIds(plan.getFeatureIds());
 
         int multiplier = getDurationMultiplier(plan.getDuration());
         List<FeatureResponse> adjustedFeatures = multiplyFeatureUnits(features, multiplier);
@@ -227,6 +381,28 @@ public class PlanService {
         return toPlanResponse(plan, adjustedFeatures);
     }
 
+    // Sets totalPrice (features x duration, 0 for the Free plan) and discountedPrice
+    private void applyPricing(Plan plan, List<FeatureResponse> features) {
+        double monthlyFee = features.stream()
+                .mapToDouble(FeatureResponse::getPricePerUnit)
+                .sum();
+
+        double originalPrice = monthlyFee * getDurationMultiplier(plan.getDuration());
+
+        if ("Free".equalsIgnoreCase(plan.getName())) {
+            originalPrice = 0.0;
+        }
+
+        plan.setTotalPrice(originalPrice);
+
+        double discountedPrice = originalPrice;
+        if (Boolean.TRUE.equals(plan.getIsDiscountActive()) && plan.getDiscountPercentage() != null) {
+            discountedPrice = Math.max(0, originalPrice - (originalPrice * plan.getDiscountPercentage() / 100));
+        }
+
+        plan.setDiscountedPrice(discountedPrice);
+    }
+
     // Helper method: multiply defaultIncludedUnits by multiplier
     private List<FeatureResponse> multiplyFeatureUnits(List<FeatureResponse> features, int multiplier) {
         return features.stream()
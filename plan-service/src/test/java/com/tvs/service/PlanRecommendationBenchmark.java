@@ -0,0 +1,114 @@
+package com.tvs.service;
+
+import com.tvs.dto.FeatureResponse;
+import com.tvs.dto.PlanResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency (p50/p99 from JMH's sample mode) of ranking every active plan for one usage
+ * vector with PlanRecommendationIndex.recommend, against the target of under 10 ms for
+ * hundreds of plans. Each plan has 5 of 40 features and the usage covers 10 of them.
+ * rebuild measures the background index build the same plans cost after a plan write.
+ *
+ * Run with:
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main PlanRecommendationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanRecommendationBenchmark {
+
+    private static final String[] DURATIONS = {"MONTH", "QUARTER", "YEAR"};
+
+    @Param({"500"})
+    public int plans;
+
+    private PlanRecommendationIndex index;
+    private List<PlanResponse> activePlans;
+    private Map<UUID, Double> usage;
+    private UUID currentPlanId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<FeatureResponse> features = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            FeatureResponse feature = new FeatureResponse();
+            feature.setFeatureId(UUID.randomUUID());
+            feature.setName("Feature " + i);
+            feature.setPricePerUnit(1.0 + random.nextInt(20));
+            features.add(feature);
+        }
+
+        activePlans = new ArrayList<>();
+        for (int p = 0; p < plans; p++) {
+            String duration = DURATIONS[p % DURATIONS.length];
+            int months = switch (duration) {
+                case "QUARTER" -> 3;
+                case "YEAR" -> 12;
+                default -> 1;
+            };
+            List<FeatureResponse> planFeatures = new ArrayList<>();
+            for (int f = 0; f < 5; f++) {
+                FeatureResponse source = features.get((p * 7 + f * 11) % features.size());
+                FeatureResponse included = new FeatureResponse();
+                included.setFeatureId(source.getFeatureId());
+                included.setPricePerUnit(source.getPricePerUnit());
+                included.setDefaultIncludedUnits((10 + random.nextInt(90)) * months);
+                planFeatures.add(included);
+            }
+            PlanResponse plan = new PlanResponse();
+            plan.setPlanId(UUID.randomUUID());
+            plan.setName("Plan " + p);
+            plan.setDuration(duration);
+            plan.setTotalPrice((50.0 + random.nextInt(450)) * months);
+            plan.setDiscountedPrice(plan.getTotalPrice());
+            plan.setFeatures(planFeatures);
+            activePlans.add(plan);
+        }
+
+        usage = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            usage.put(features.get(i * 4).getFeatureId(), 20.0 + random.nextInt(100));
+        }
+        currentPlanId = activePlans.get(plans / 2).getPlanId();
+
+        index = new PlanRecommendationIndex();
+        index.rebuild(activePlans, "v1");
+    }
+
+    @Benchmark
+    public Object recommend() {
+        return index.recommend(usage, currentPlanId, 5);
+    }
+
+    @Benchmark
+    public Object rebuild() {
+        PlanRecommendationIndex fresh = new PlanRecommendationIndex();
+        fresh.rebuild(activePlans, "v1");
+        return fresh;
+    }
+}
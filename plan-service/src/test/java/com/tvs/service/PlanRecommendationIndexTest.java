@@ -0,0 +1,114 @@
+package com.tvs.service;
+
+import com.tvs.dto.FeatureResponse;
+import com.tvs.dto.PlanRecommendationResponse;
+import com.tvs.dto.PlanResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlanRecommendationIndexTest {
+
+    private final UUID swap = UUID.randomUUID();
+    private final UUID charging = UUID.randomUUID();
+
+    private final PlanRecommendationIndex index = new PlanRecommendationIndex();
+
+    @Test
+    void projectedCostIsPricePlusOverageAtPricePerUnitOverTheWholeDuration() {
+        // Included units are per plan duration, as PlanService hands them over
+        PlanResponse monthly = plan("Monthly", "MONTH", 100.0, null, feature(swap, 10.0, 10));
+        PlanResponse quarterly = plan("Quarterly", "QUARTER", 240.0, null,
+                feature(swap, 10.0, 30), feature(charging, 2.0, 60));
+        PlanResponse yearly = plan("Yearly", "YEAR", 1500.0, 1200.0,
+                feature(swap, 10.0, 240), feature(charging, 2.0, 120));
+        index.rebuild(List.of(monthly, quarterly, yearly), "v1");
+
+        List<PlanRecommendationResponse> ranked = index.recommend(
+                Map.of(swap, 15.0, charging, 20.0), monthly.getPlanId(), 5);
+
+        assertEquals(List.of("Yearly", "Quarterly", "Monthly"),
+                ranked.stream().map(PlanRecommendationResponse::getName).toList());
+
+        // 12 months: swap 180 of 240 included, charging 240 of 120 -> 120 x 2.0
+        PlanRecommendationResponse first = ranked.get(0);
+        assertEquals(1200.0, first.getPlanPrice()); // the discounted price
+        assertEquals(240.0, first.getProjectedOverage());
+        assertEquals(1440.0, first.getProjectedCost());
+        assertEquals(120.0, first.getMonthlyCost());
+        assertEquals(70.0, first.getMonthlySavings());
+
+        // 3 months: swap 45 of 30 -> 15 x 10.0, charging 60 of 60
+        PlanRecommendationResponse second = ranked.get(1);
+        assertEquals(150.0, second.getProjectedOverage());
+        assertEquals(390.0, second.getProjectedCost());
+        assertEquals(130.0, second.getMonthlyCost());
+        assertEquals(60.0, second.getMonthlySavings());
+
+        // 1 month: swap 15 of 10 -> 5 x 10.0, and charging is not in the plan -> 20 x 2.0
+        PlanRecommendationResponse third = ranked.get(2);
+        assertEquals(90.0, third.getProjectedOverage());
+        assertEquals(190.0, third.getProjectedCost());
+        assertEquals(190.0, third.getMonthlyCost());
+        assertEquals(0.0, third.getMonthlySavings());
+    }
+
+    @Test
+    void unknownFeaturesAndMissingCurrentPlanAreIgnored() {
+        PlanResponse cheap = plan("Cheap", "MONTH", 50.0, null, feature(swap, 10.0, 5));
+        PlanResponse roomy = plan("Roomy", "MONTH", 80.0, null, feature(swap, 10.0, 50));
+        index.rebuild(List.of(cheap, roomy), "v1");
+
+        List<PlanRecommendationResponse> idle = index.recommend(Map.of(UUID.randomUUID(), 1000.0), null, 5);
+        assertEquals("Cheap", idle.get(0).getName());
+        assertEquals(0.0, idle.get(0).getProjectedOverage());
+        assertNull(idle.get(0).getMonthlySavings());
+
+        List<PlanRecommendationResponse> busy = index.recommend(Map.of(swap, 20.0), UUID.randomUUID(), 1);
+        assertEquals(1, busy.size());
+        assertEquals("Roomy", busy.get(0).getName());
+        assertNull(busy.get(0).getMonthlySavings());
+    }
+
+    @Test
+    void tracksTheCatalogVersionItWasBuiltFrom() {
+        assertTrue(index.recommend(Map.of(swap, 1.0), null, 5).isEmpty());
+        assertFalse(index.isBuiltFor(null));
+
+        index.rebuild(List.of(plan("Basic", "MONTH", 10.0, null, feature(swap, 1.0, 1))), "v1");
+        assertTrue(index.isBuiltFor("v1"));
+        assertFalse(index.isBuiltFor("v2"));
+
+        index.invalidate();
+        assertFalse(index.isBuiltFor("v1"));
+        assertEquals(1, index.recommend(Map.of(swap, 1.0), null, 5).size()); // still serving
+    }
+
+    private static PlanResponse plan(String name, String duration, double price, Double discounted,
+                                     FeatureResponse... features) {
+        PlanResponse plan = new PlanResponse();
+        plan.setPlanId(UUID.randomUUID());
+        plan.setName(name);
+        plan.setDuration(duration);
+        plan.setTotalPrice(price);
+        plan.setDiscountedPrice(discounted != null ? discounted : price);
+        plan.setIsActive(true);
+        plan.setFeatures(List.of(features));
+        return plan;
+    }
+
+    private static FeatureResponse feature(UUID featureId, double pricePerUnit, int includedUnits) {
+        FeatureResponse feature = new FeatureResponse();
+        feature.setFeatureId(featureId);
+        feature.setPricePerUnit(pricePerUnit);
+        feature.setDefaultIncludedUnits(includedUnits);
+        return feature;
+    }
+}
@@ -0,0 +1,173 @@
+package com.tvs.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvs.dto.FeatureResponse;
+import com.tvs.dto.PlanRequest;
+import com.tvs.entity.Plan;
+import com.tvs.repository.PlanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:repricing;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PlanRepricingTest {
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // What tvs-feature currently answers, by id
+    private final Map<UUID, FeatureResponse> features = new HashMap<>();
+
+    private PlanService planService;
+
+    @BeforeEach
+    void setUp() {
+        FeatureClientService featureClientService = mock(FeatureClientService.class);
+        when(featureClientService.getFeaturesByIds(anyList())).thenAnswer(inv -> inv.<List<UUID>>getArgument(0).stream()
+                .map(features::get)
+                .filter(f -> f != null)
+                .toList());
+        FeatureCatalog featureCatalog = mock(FeatureCatalog.class);
+        PlanResponseCache planCache = new PlanResponseCache(new ObjectMapper(), featureCatalog);
+        ReflectionTestUtils.setField(planCache, "maxSize", 1000);
+        planService = new PlanService(planRepository, featureClientService, featureCatalog, planCache,
+                transactionTemplate, new PlanRecommendationIndex());
+    }
+
+    @AfterEach
+    void tearDown() {
+        planService.stopRecommendationIndex();
+        planRepository.deleteAll();
+    }
+
+    @Test
+    void repricesOnlyPlansWithAChangedFeatureAndMatchesUpdatePlan() {
+        UUID swap = feature(100.0);
+        UUID charging = feature(40.0);
+        UUID roadside = feature(25.0);
+        Plan monthly = plan("Swap Monthly", Plan.Duration.MONTH, null, swap);
+        Plan quarterly = plan("Swap Quarterly", Plan.Duration.QUARTER, 10.0, swap, charging);
+        Plan yearly = plan("Swap Yearly", Plan.Duration.YEAR, 25.0, swap, roadside);
+        Plan free = plan("Free", Plan.Duration.MONTH, null, swap);
+        Plan chargingOnly = plan("Charging", Plan.Duration.YEAR, null, charging);
+        Plan roadsideOnly = plan("Roadside", Plan.Duration.MONTH, null, roadside);
+
+        // Swap's price changed; charging's changed too but no reprice was asked for it yet
+        features.get(swap).setPricePerUnit(120.0);
+        features.get(charging).setPricePerUnit(50.0);
+        assertEquals(4, planService.repriceForFeatures(List.of(swap)));
+
+        assertEquals(120.0, price(monthly).getTotalPrice());
+        assertEquals(510.0, price(quarterly).getTotalPrice());
+        assertEquals(459.0, price(quarterly).getDiscountedPrice());
+        assertEquals(1740.0, price(yearly).getTotalPrice());
+        assertEquals(1305.0, price(yearly).getDiscountedPrice());
+        assertEquals(0.0, price(free).getTotalPrice());
+        // Not repriced: still the prices they were created with
+        assertEquals(480.0, price(chargingOnly).getTotalPrice());
+        assertEquals(25.0, price(roadsideOnly).getTotalPrice());
+
+        // updatePlan with no changes prices from the same features: it must agree
+        for (Plan plan : List.of(monthly, quarterly, yearly, free)) {
+            Plan repriced = price(plan);
+            planService.updatePlan(plan.getPlanId(), new PlanRequest());
+            Plan updated = price(plan);
+            assertEquals(repriced.getTotalPrice(), updated.getTotalPrice(), plan.getName());
+            assertEquals(repriced.getDiscountedPrice(), updated.getDiscountedPrice(), plan.getName());
+        }
+    }
+
+    @Test
+    void repricesAThousandPlansInOneCall() {
+        UUID swap = feature(100.0);
+        List<UUID> others = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            others.add(feature(10.0 + i));
+        }
+        List<Plan> plans = new ArrayList<>();
+        Plan.Duration[] durations = Plan.Duration.values();
+        for (int i = 0; i < 1000; i++) {
+            plans.add(newPlan("Plan " + i, durations[i % durations.length], i % 2 == 0 ? 15.0 : null,
+                    swap, others.get(i % others.size())));
+        }
+        planRepository.saveAll(plans);
+
+        // The first call also pays for class loading and JIT; the second is the steady state
+        for (String run : List.of("cold", "warm")) {
+            features.get(swap).setPricePerUnit(run.equals("cold") ? 105.0 : 110.0);
+            long start = System.nanoTime();
+            int repriced = planService.repriceForFeatures(List.of(swap));
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("Repriced %d plans in %d ms (%s, H2 in memory)%n", repriced, elapsedMs, run);
+            assertEquals(1000, repriced);
+        }
+        Plan sample = price(plans.get(1)); // QUARTER, no discount, the 11.0 feature
+        assertEquals((110.0 + 11.0) * 3, sample.getTotalPrice());
+    }
+
+    private UUID feature(double price) {
+        FeatureResponse feature = new FeatureResponse();
+        feature.setFeatureId(UUID.randomUUID());
+        feature.setPricePerUnit(price);
+        feature.setDefaultIncludedUnits(10);
+        feature.setIsActive(true);
+        features.put(feature.getFeatureId(), feature);
+        return feature.getFeatureId();
+    }
+
+    // Created through the service, so it starts with createPlan's prices
+    private Plan plan(String name, Plan.Duration duration, Double discount, UUID... featureIds) {
+        PlanRequest request = new PlanRequest();
+        request.setName(name);
+        request.setDuration(duration.name());
+        request.setFeatureIds(List.of(featureIds));
+        request.setDiscountPercentage(discount);
+        request.setIsDiscountActive(discount != null);
+        return planRepository.findById(planService.createPlan(request).getPlanId()).orElseThrow();
+    }
+
+    private static Plan newPlan(String name, Plan.Duration duration, Double discount, UUID... featureIds) {
+        Plan plan = new Plan();
+        plan.setName(name);
+        plan.setDuration(duration);
+        plan.setFeatureIds(new ArrayList<>(List.of(featureIds)));
+        plan.setDiscountPercentage(discount);
+        plan.setIsDiscountActive(discount != null);
+        plan.setIsActive(true);
+        return plan;
+    }
+
+    private Plan price(Plan plan) {
+        return planRepository.findById(plan.getPlanId()).orElseThrow();
+    }
+}
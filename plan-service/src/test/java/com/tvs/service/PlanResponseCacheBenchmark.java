@@ -0,0 +1,124 @@
+package com.tvs.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvs.dto.FeatureResponse;
+import com.tvs.dto.PlanResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency distribution (p50/p99 from JMH's sample mode) of PlanResponseCache.getOrLoad
+ * under GET /api/v1/plans/{id} traffic: 4 threads reading a catalog of plans with a
+ * skewed popularity (a few plans take most reads), and writePercent of the calls
+ * invalidating a random plan like an admin edit would. The cache holds 1,000 plans, so
+ * the 2,000-plan catalog also measures eviction.
+ *
+ * A miss runs a loader that assembles a plan with 5 features, standing in for the
+ * DB read plus feature lookup; the hit ratio is printed at the end of each trial.
+ *
+ * Run with:
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main PlanResponseCacheBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PlanResponseCacheBenchmark {
+
+    @Param({"500", "2000"})
+    public int plans;
+
+    @Param({"0", "1"})
+    public int writePercent;
+
+    private PlanResponseCache cache;
+    private UUID[] planIds;
+    private List<FeatureResponse> features;
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Never refreshed, so its version stays null and matches every entry
+        FeatureCatalog catalog = new FeatureCatalog(null, null);
+        cache = new PlanResponseCache(new ObjectMapper(), catalog);
+        ReflectionTestUtils.setField(cache, "maxSize", 1_000);
+
+        planIds = new UUID[plans];
+        for (int i = 0; i < plans; i++) {
+            planIds[i] = UUID.randomUUID();
+        }
+        features = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            FeatureResponse feature = new FeatureResponse();
+            feature.setFeatureId(UUID.randomUUID());
+            feature.setCode("F" + i);
+            feature.setName("Feature " + i);
+            feature.setUnit("units");
+            feature.setPricePerUnit(10.0 + i);
+            feature.setDefaultIncludedUnits(100);
+            feature.setIsActive(true);
+            features.add(feature);
+        }
+        lookups.set(0);
+        loads.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%nplans=%d writePercent=%d: %d lookups, hit ratio %.3f%n",
+                plans, writePercent, lookups.get(), 1.0 - (double) loads.get() / Math.max(1, lookups.get()));
+    }
+
+    @Benchmark
+    public Object lookup() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Squaring a uniform draw favours low indexes: the first 10% of plans get ~32% of reads
+        double u = random.nextDouble();
+        UUID planId = planIds[(int) (u * u * plans)];
+        if (random.nextInt(100) < writePercent) {
+            cache.invalidate(planIds[random.nextInt(plans)]);
+        }
+        lookups.incrementAndGet();
+        return cache.getOrLoad(planId, this::load);
+    }
+
+    private PlanResponse load(UUID planId) {
+        loads.incrementAndGet();
+        PlanResponse response = new PlanResponse();
+        response.setPlanId(planId);
+        response.setName("Plan " + planId);
+        response.setDescription("Benchmark plan");
+        response.setDuration("MONTH");
+        response.setFeatures(features);
+        response.setTotalPrice(60.0);
+        response.setDiscountedPrice(60.0);
+        response.setIsActive(true);
+        response.setAllowOverage(false);
+        return response;
+    }
+}
@@ -0,0 +1,135 @@
+package com.tvs.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvs.dto.PlanResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PlanResponseCacheTest {
+
+    private final FeatureCatalog featureCatalog = mock(FeatureCatalog.class);
+    private final AtomicInteger loads = new AtomicInteger();
+    private PlanResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(featureCatalog.getVersion()).thenReturn("v1");
+        cache = newCache(1000);
+    }
+
+    @Test
+    void servesTheCachedPlanUntilItIsInvalidated() {
+        UUID planId = UUID.randomUUID();
+        PlanResponseCache.CachedPlan first = cache.getOrLoad(planId, loader("Basic"));
+        assertSame(first, cache.getOrLoad(planId, loader("Basic")));
+        assertEquals(1, loads.get());
+
+        cache.invalidate(planId);
+        assertEquals("Premium", cache.getOrLoad(planId, loader("Premium")).response().getName());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadThatRacedAnInvalidationIsNotCached() {
+        UUID planId = UUID.randomUUID();
+        // The plan is written (and invalidated) while this read is still assembling it
+        PlanResponse stale = cache.getOrLoad(planId, id -> {
+            PlanResponse old = loader("Old").apply(id);
+            cache.invalidate(id);
+            return old;
+        }).response();
+        assertEquals("Old", stale.getName());
+
+        assertEquals("New", cache.getOrLoad(planId, loader("New")).response().getName());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void batchLoadThatRacedAnInvalidationIsNotCached() {
+        UUID planId = UUID.randomUUID();
+        cache.getAll(List.of(planId), ids -> {
+            Map<UUID, PlanResponse> old = Map.of(planId, loader("Old").apply(planId));
+            cache.invalidate(UUID.randomUUID()); // any write bumps the generation
+            return old;
+        });
+
+        Map<UUID, PlanResponse> fresh = cache.getAll(List.of(planId), ids -> Map.of(planId, loader("New").apply(planId)));
+        assertEquals("New", fresh.get(planId).getName());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void entriesBuiltFromAnOlderCatalogVersionAreMisses() {
+        UUID planId = UUID.randomUUID();
+        cache.getOrLoad(planId, loader("Basic"));
+        cache.getAll(List.of(planId), batchLoader("Basic"));
+        assertEquals(1, loads.get());
+
+        when(featureCatalog.getVersion()).thenReturn("v2");
+        PlanResponseCache.CachedPlan reloaded = cache.getOrLoad(planId, loader("Basic v2"));
+        assertEquals("v2", reloaded.catalogVersion());
+        assertEquals("Basic v2", reloaded.response().getName());
+        assertEquals("Basic v2", cache.getAll(List.of(planId), batchLoader("Basic v3")).get(planId).getName());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void jsonMatchesTheCachedResponse() throws Exception {
+        UUID planId = UUID.randomUUID();
+        PlanResponseCache.CachedPlan cached = cache.getOrLoad(planId, loader("Basic"));
+        PlanResponse decoded = new ObjectMapper().readValue(cached.json(), PlanResponse.class);
+        assertEquals(cached.response(), decoded);
+    }
+
+    @Test
+    void staysWithinMaxSize() {
+        PlanResponseCache small = newCache(10);
+        for (int i = 0; i < 100; i++) {
+            small.getOrLoad(UUID.randomUUID(), loader("Plan " + i));
+        }
+        Map<?, ?> entries = (Map<?, ?>) ReflectionTestUtils.getField(small, "entries");
+        assertTrue(entries.size() <= 10, "cached " + entries.size());
+    }
+
+    private PlanResponseCache newCache(int maxSize) {
+        PlanResponseCache planCache = new PlanResponseCache(new ObjectMapper(), featureCatalog);
+        ReflectionTestUtils.setField(planCache, "maxSize", maxSize);
+        return planCache;
+    }
+
+    private Function<UUID, PlanResponse> loader(String name) {
+        return planId -> {
+            loads.incrementAndGet();
+            PlanResponse response = new PlanResponse();
+            response.setPlanId(planId);
+            response.setName(name);
+            response.setDuration("MONTH");
+            response.setFeatures(List.of());
+            return response;
+        };
+    }
+
+    private Function<Set<UUID>, Map<UUID, PlanResponse>> batchLoader(String name) {
+        Function<UUID, PlanResponse> single = loader(name);
+        return ids -> {
+            Map<UUID, PlanResponse> plans = new HashMap<>();
+            ids.forEach(id -> plans.put(id, single.apply(id)));
+            return plans;
+        };
+    }
+}
@@ -0,0 +1,247 @@
+package com.tvs.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvs.dto.FeatureResponse;
+import com.tvs.dto.PlanRequest;
+import com.tvs.entity.Plan;
+import com.tvs.exception.PlanNotFoundException;
+import com.tvs.repository.PlanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Every PlanService write must leave no stale PlanResponseCache entry behind: each test
+ * warms the cache, changes the plan through the service and reads it back.
+ */
+class PlanServiceCacheInvalidationTest {
+
+    private final PlanRepository planRepository = mock(PlanRepository.class);
+    private final FeatureClientService featureClientService = mock(FeatureClientService.class);
+    private final FeatureCatalog featureCatalog = mock(FeatureCatalog.class);
+
+    // Stands in for the plan table
+    private final Map<UUID, Plan> table = new HashMap<>();
+    private final Map<UUID, FeatureResponse> features = new HashMap<>();
+
+    private PlanService planService;
+    private UUID swap;
+
+    @BeforeEach
+    void setUp() {
+        swap = feature("Swap", 100.0).getFeatureId();
+        when(featureCatalog.getVersion()).thenReturn("v1");
+        when(featureCatalog.getFeaturesByIds(anyList())).thenAnswer(inv -> lookup(inv.getArgument(0)));
+        when(featureClientService.getFeaturesByIds(anyList())).thenAnswer(inv -> lookup(inv.getArgument(0)));
+        when(planRepository.findById(any())).thenAnswer(inv -> Optional.ofNullable(table.get(inv.<UUID>getArgument(0))));
+        when(planRepository.existsById(any())).thenAnswer(inv -> table.containsKey(inv.<UUID>getArgument(0)));
+        when(planRepository.findAll()).thenAnswer(inv -> new ArrayList<>(table.values()));
+        when(planRepository.findAllById(any())).thenAnswer(inv -> {
+            List<Plan> found = new ArrayList<>();
+            inv.<Iterable<UUID>>getArgument(0).forEach(id -> Optional.ofNullable(table.get(id)).ifPresent(found::add));
+            return found;
+        });
+        when(planRepository.findByFeatureIdIn(anyCollection())).thenAnswer(inv -> table.values().stream()
+                .filter(p -> p.getFeatureIds().stream().anyMatch(inv.<Collection<UUID>>getArgument(0)::contains))
+                .toList());
+        when(planRepository.save(any(Plan.class))).thenAnswer(inv -> store(inv.getArgument(0)));
+        when(planRepository.saveAll(anyList())).thenAnswer(inv -> {
+            inv.<List<Plan>>getArgument(0).forEach(this::store);
+            return inv.getArgument(0);
+        });
+        doAnswer(inv -> table.remove(inv.<UUID>getArgument(0)))
+                .when(planRepository).deleteById(any());
+
+        PlanResponseCache planCache = new PlanResponseCache(new ObjectMapper(), featureCatalog);
+        ReflectionTestUtils.setField(planCache, "maxSize", 1000);
+        planService = new PlanService(planRepository, featureClientService, featureCatalog, planCache,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new PlanRecommendationIndex());
+    }
+
+    @AfterEach
+    void tearDown() {
+        planService.stopRecommendationIndex();
+    }
+
+    @Test
+    void createdPlanIsServedEvenIfItWasLookedUpBefore() {
+        UUID planId = UUID.randomUUID();
+        assertTrue(planService.getPlansByIds(List.of(planId)).isEmpty());
+
+        when(planRepository.save(any(Plan.class))).thenAnswer(inv -> {
+            Plan saved = inv.getArgument(0);
+            if (saved.getPlanId() == null) saved.setPlanId(planId);
+            return store(saved);
+        });
+        planService.createPlan(request("Basic", "MONTH"));
+
+        assertEquals("Basic", planService.getPlanById(planId).getName());
+        assertEquals(1, planService.getPlansByIds(List.of(planId)).size());
+    }
+
+    @Test
+    void updatePlanEvictsTheOldResponse() {
+        UUID planId = existingPlan("Basic");
+        warm(planId);
+
+        PlanRequest update = new PlanRequest();
+        update.setName("Basic Plus");
+        update.setDuration("QUARTER");
+        planService.updatePlan(planId, update);
+
+        assertEquals("Basic Plus", planService.getPlanById(planId).getName());
+        assertEquals(300.0, planService.getPlanById(planId).getTotalPrice());
+        assertEquals(300, planService.getPlanById(planId).getFeatures().get(0).getDefaultIncludedUnits());
+        assertEquals("Basic Plus", planService.getPlansByIds(List.of(planId)).get(0).getName());
+        assertTrue(new String(planService.getPlanJson(planId)).contains("Basic Plus"));
+    }
+
+    @Test
+    void activateAndDeactivateEvictTheOldResponse() {
+        UUID planId = existingPlan("Basic");
+        warm(planId);
+
+        planService.deactivatePlan(planId);
+        assertFalse(planService.getPlanById(planId).getIsActive());
+        assertFalse(planService.getPlansByIds(List.of(planId)).get(0).getIsActive());
+
+        planService.activatePlan(planId);
+        assertTrue(planService.getPlanById(planId).getIsActive());
+        assertTrue(planService.getPlansByIds(List.of(planId)).get(0).getIsActive());
+    }
+
+    @Test
+    void deletedPlanIsNoLongerServed() {
+        UUID planId = existingPlan("Basic");
+        warm(planId);
+
+        planService.deletePlan(planId);
+        assertThrows(PlanNotFoundException.class, () -> planService.getPlanById(planId));
+        assertTrue(planService.getPlansByIds(List.of(planId)).isEmpty());
+    }
+
+    @Test
+    void repricingEvictsEveryRepricedPlan() {
+        UUID basic = existingPlan("Basic");
+        UUID premium = existingPlan("Premium");
+        warm(basic);
+        warm(premium);
+
+        features.get(swap).setPricePerUnit(120.0);
+        assertEquals(2, planService.repriceForFeatures(List.of(swap)));
+
+        assertEquals(120.0, planService.getPlanById(basic).getTotalPrice());
+        assertEquals(120.0, planService.getPlansByIds(List.of(premium)).get(0).getTotalPrice());
+    }
+
+    @Test
+    void featureEditsArePickedUpWhenTheCatalogVersionMoves() {
+        UUID planId = existingPlan("Basic");
+        warm(planId);
+
+        // A feature edit reaches the replica without any plan write
+        features.get(swap).setName("Battery Swap");
+        assertEquals("Swap", planService.getPlanById(planId).getFeatures().get(0).getName());
+        when(featureCatalog.getVersion()).thenReturn("v2");
+
+        assertEquals("Battery Swap", planService.getPlanById(planId).getFeatures().get(0).getName());
+        assertEquals("Battery Swap", planService.getPlansByIds(List.of(planId)).get(0).getFeatures().get(0).getName());
+    }
+
+    private UUID existingPlan(String name) {
+        Plan plan = new Plan();
+        plan.setPlanId(UUID.randomUUID());
+        plan.setName(name);
+        plan.setDuration(Plan.Duration.MONTH);
+        plan.setFeatureIds(new ArrayList<>(List.of(swap)));
+        plan.setTotalPrice(100.0);
+        plan.setDiscountedPrice(100.0);
+        plan.setIsActive(true);
+        store(plan);
+        return plan.getPlanId();
+    }
+
+    // Puts the plan into both the single and the batch read path
+    private void warm(UUID planId) {
+        planService.getPlanById(planId);
+        planService.getPlanJson(planId);
+        planService.getPlansByIds(List.of(planId));
+    }
+
+    private Plan store(Plan plan) {
+        // A copy, as a real repository hands back a new instance on every read
+        Plan copy = new Plan();
+        copy.setPlanId(plan.getPlanId());
+        copy.setName(plan.getName());
+        copy.setDescription(plan.getDescription());
+        copy.setDuration(plan.getDuration());
+        copy.setFeatureIds(new ArrayList<>(plan.getFeatureIds()));
+        copy.setTotalPrice(plan.getTotalPrice());
+        copy.setDiscountedPrice(plan.getDiscountedPrice());
+        copy.setDiscountPercentage(plan.getDiscountPercentage());
+        copy.setIsDiscountActive(plan.getIsDiscountActive());
+        copy.setIsActive(plan.getIsActive());
+        copy.setAllowOverage(plan.getAllowOverage());
+        table.put(copy.getPlanId(), copy);
+        return plan;
+    }
+
+    private PlanRequest request(String name, String duration) {
+        PlanRequest request = new PlanRequest();
+        request.setName(name);
+        request.setDuration(duration);
+        request.setFeatureIds(List.of(swap));
+        return request;
+    }
+
+    private FeatureResponse feature(String name, double price) {
+        FeatureResponse feature = new FeatureResponse();
+        feature.setFeatureId(UUID.randomUUID());
+        feature.setName(name);
+        feature.setPricePerUnit(price);
+        feature.setDefaultIncludedUnits(100);
+        feature.setIsActive(true);
+        features.put(feature.getFeatureId(), feature);
+        return feature;
+    }
+
+    private List<FeatureResponse> lookup(List<UUID> ids) {
+        List<FeatureResponse> found = new ArrayList<>();
+        for (UUID id : ids) {
+            FeatureResponse source = features.get(id);
+            if (source == null) continue;
+            // Copies, so an edit only shows where it is read again
+            FeatureResponse copy = new FeatureResponse();
+            copy.setFeatureId(source.getFeatureId());
+            copy.setName(source.getName());
+            copy.setPricePerUnit(source.getPricePerUnit());
+            copy.setDefaultIncludedUnits(source.getDefaultIncludedUnits());
+            copy.setIsActive(source.getIsActive());
+            found.add(copy);
+        }
+        return found;
+    }
+}
@@ -1,7 +1,11 @@
 package com.tvs.filter;
 
+import com.tvs.security.Identity;
+import com.tvs.security.IdentityHeaders;
 import com.tvs.util.JwtUtil;
+import com.tvs.util.UserIdResolver;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
@@ -15,14 +19,23 @@ import reactor.core.publisher.Mono;
 import java.util.List;
 import java.util.Map;
 import java.util.LinkedHashMap;
+import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAuthenticationFilter.Config> {
 
     private final JwtUtil jwtUtil;
+    private final UserIdResolver userIdResolver;
+    private final IdentityHeaders identityHeaders;
 
-    private final Map<String, List<String>> roleMapping = new LinkedHashMap<>() {{
+    // Short-lived so a captured header set cannot be replayed for long
+    @Value("${identity.header.ttl-ms:30000}")
+    private long identityTtlMs;
+
+    // The first declared pattern that matches wins (see RoutePermissionMatcher), so
+    // admin-only routes must come before the broad USER patterns that also match them
+    static final Map<String, List<String>> ROLE_MAPPING = new LinkedHashMap<>() {{
         // Public endpoints
         put("/api/users/login", List.of());
         put("/api/users/forgot-password/**", List.of());
@@ -32,7 +45,18 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
         put("/api/users/register", List.of());
         put("/api/v1/plans/active", List.of());
         put("/api/v1/plans/preview", List.of());
-      
+
+        // Admin-only endpoints
+        put("/api/orders/all", List.of( "ADMIN"));
+        put("/api/users/all", List.of("ADMIN"));
+        put("/api/users/batch", List.of("ADMIN")); // service-to-service lookups
+        put("/api/v1/plans/*/activate", List.of("ADMIN"));
+        put("/api/v1/plans/*/deactivate", List.of("ADMIN"));
+        put("/api/v1/plans/reprice", List.of("ADMIN")); // tvs-feature price changes
+        put("/api/plan-usage/overage/**", List.of("ADMIN")); // billing runs
+        put("/api/notifications/**", List.of("ADMIN"));
+        put("/internal/**", List.of("ADMIN"));
+
         // User and Admin access
         put("/api/plan-usage/**", List.of("USER", "ADMIN"));
         put("/api/subscriptions/**", List.of("USER", "ADMIN"));
@@ -44,25 +68,23 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
         put("/api/orders/**", List.of("USER", "ADMIN"));
         put("/api/**", List.of("USER", "ADMIN"));
 
-        // Admin-only endpoints
-        put("/api/orders/all", List.of( "ADMIN"));
+        // Shadowed by /api/users/** and kept that way: single-segment user routes such as
+        // /count, /plans and /update-password are called by users, not only by admins
         put("/api/users/{userId}", List.of("ADMIN"));
-        put("/api/users/all", List.of("ADMIN"));
-        put("/api/v1/plans/*/activate", List.of("ADMIN"));
-        put("/api/v1/plans/*/deactivate", List.of("ADMIN"));
-        put("/api/notifications/**", List.of("ADMIN"));
-        put("/internal/**", List.of("ADMIN"));
     }};
 
+    // Compiled once so each request costs a single trie walk instead of a regex per pattern
+    private final RoutePermissionMatcher routeMatcher = RoutePermissionMatcher.compile(ROLE_MAPPING);
 
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
             ServerHttpRequest request = exchange.getRequest();
             String path = request.getURI().getPath();
+            RoutePermissionMatcher.Rule rule = routeMatcher.match(path);
 
             // Skip authentication for public endpoints
-            if (isPublicEndpoint(path)) {
+            if (rule != null && rule.isPublic()) {
                 return chain.filter(exchange);
             }
 
@@ -73,101 +95,67 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
             }
 
             String token = authHeader.substring(7);
-            String email;
-            List<String> roles;
+            Identity identity;
 
             try {
-                if (!jwtUtil.validateToken(token)) {
-                    return unauthorized(exchange, "Invalid or expired JWT token");
-                }
-
-                email = jwtUtil.extractUsername(token);
-                roles = jwtUtil.extractRoles(token);
-
+                identity = jwtUtil.verify(token);
             } catch (Exception e) {
                 return unauthorized(exchange, "Invalid or expired JWT token");
             }
 
-            // Role-based access check
-            if (!isRoleAllowed(path, roles)) {
+            String email = identity.email();
+
+            // Role-based access check (default: allow authenticated users)
+            if (rule != null && !rule.allows(identity.roles())) {
                 return forbidden(exchange, "Access denied: insufficient privileges");
             }
 
-            // Forward Authorization header + user info to downstream services (only if present)
-            ServerHttpRequest.Builder builder = request.mutate();
-
-            // Ensure Authorization forwarded (it exists here)
-            builder.header(HttpHeaders.AUTHORIZATION, authHeader);
-
-            if (email != null && !email.isBlank()) {
-                builder.header("X-User-Email", email);
+            // Resolve the user's id once (cached) and attach a signed identity so downstream
+            // services can authorize locally instead of calling user-service per request
+            if (identity.userId() != null) {
+                // Newer tokens carry the id themselves
+                return chain.filter(withIdentity(exchange, authHeader, identity.userId(), identity));
             }
-            if (roles != null && !roles.isEmpty()) {
-                builder.header("X-User-Roles", String.join(",", roles));
+            if (email == null || email.isBlank()) {
+                return chain.filter(withIdentity(exchange, authHeader, null, identity));
             }
-
-            ServerHttpRequest modifiedRequest = builder.build();
-            return chain.filter(exchange.mutate().request(modifiedRequest).build());
+            return userIdResolver.resolve(email)
+                    .map(userId -> withIdentity(exchange, authHeader, userId, identity))
+                    .onErrorResume(e -> Mono.empty())
+                    .switchIfEmpty(Mono.fromSupplier(() -> withIdentity(exchange, authHeader, null, identity)))
+                    .flatMap(chain::filter);
         };
     }
 
-    private boolean isPublicEndpoint(String path) {
-        return roleMapping.entrySet().stream()
-                .filter(e -> e.getValue().isEmpty())
-                .anyMatch(e -> pathMatches(e.getKey(), path));
-    }
+    private ServerWebExchange withIdentity(ServerWebExchange exchange, String authHeader,
+                                           UUID userId, Identity identity) {
+        String email = identity.email();
+        List<String> roles = identity.roles();
 
-    private boolean isRoleAllowed(String path, List<String> userRoles) {
-        for (Map.Entry<String, List<String>> entry : roleMapping.entrySet()) {
-            if (pathMatches(entry.getKey(), path)) {
-                List<String> allowedRoles = entry.getValue();
-                if (allowedRoles.isEmpty()) return true; // public endpoint
-                if (userRoles == null || userRoles.isEmpty()) return false;
-                for (String role : userRoles) {
-                    if (allowedRoles.contains(role)) return true;
-                }
-                return false;
-            }
+        ServerHttpRequest.Builder builder = exchange.getRequest().mutate();
+        builder.headers(headers -> {
+            // Never let clients supply their own identity headers
+            IdentityHeaders.ALL.forEach(headers::remove);
+        });
+
+        // Ensure Authorization forwarded (it exists here)
+        builder.header(HttpHeaders.AUTHORIZATION, authHeader);
+
+        if (email != null && !email.isBlank()) {
+            builder.header(IdentityHeaders.USER_EMAIL, email);
+        }
+        if (roles != null && !roles.isEmpty()) {
+            builder.header(IdentityHeaders.USER_ROLES, String.join(",", roles));
+        }
+        if (userId != null && email != null) {
+            long expiresAt = System.currentTimeMillis() + identityTtlMs;
+            builder.header(IdentityHeaders.USER_ID, userId.toString());
+            builder.header(IdentityHeaders.EXPIRES, Long.toString(expiresAt));
+            builder.header(IdentityHeaders.SIGNATURE,
+                    identityHeaders.sign(userId, email, roles, expiresAt));
         }
-        return true; // default: allow authenticated users
-    }
 
-    /**
-     * Convert path patterns into regex-aware matching:
-     * - {var} -> single path segment
-     * - * -> single path segment
-     * - ** -> zero or more segments
-     *
-     * Anchors the regex to the whole path.
-     */
-    private boolean pathMatches(String pattern, String path) {
-        if (pattern == null || path == null) return false;
-
-        // Escape regex meta-chars except the ones we will handle
-        String escaped = pattern
-                .replace(".", "\\.")
-                .replace("?", "\\?")
-                .replace("+", "\\+")
-                .replace("^", "\\^")
-                .replace("$", "\\$")
-                .replace("(", "\\(")
-                .replace(")", "\\)")
-                .replace("|", "\\|");
-
-        // Replace {variable} placeholders with a single segment matcher
-        // pattern may contain literal braces; our usage uses {var} for placeholders
-        escaped = escaped.replaceAll("\\{[^/]+\\}", "[^/]+");
-
-        // Replace double-star (match zero or more segments)
-        escaped = escaped.replace("**", ".*");
-
-        // Replace single-star (match single path segment)
-        escaped = escaped.replace("*", "[^/]+");
-
-        // Anchor to full path
-        String regex = "^" + escaped + "$";
-
-        return path.matches(regex);
+        return exchange.mutate().request(builder.build()).build();
     }
 
     private Mono<Void> unauthorized(ServerWebExchange exchange, String message) {
@@ -0,0 +1,199 @@
+package com.tvs.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Route permission table compiled once into a path-segment trie.
+ *
+ * Pattern syntax (same as the role mapping in {@link JwtAuthenticationFilter}):
+ * - {var} -> single path segment
+ * - * -> single path segment
+ * - ** -> zero or more segments
+ *
+ * When several patterns match a path, the one declared first wins, so public and
+ * admin-only endpoints must be declared ahead of broader patterns such as
+ * /api/v1/plans/** that would otherwise shadow them.
+ * Lookups walk the request path in place and return a pre-built {@link Rule},
+ * so nothing is allocated per request.
+ */
+public final class RoutePermissionMatcher {
+
+    private final Node root;
+
+    private RoutePermissionMatcher(Node root) {
+        this.root = root;
+    }
+
+    public static RoutePermissionMatcher compile(Map<String, List<String>> roleMapping) {
+        Node root = new Node();
+        int order = 0;
+        for (Map.Entry<String, List<String>> entry : roleMapping.entrySet()) {
+            Rule rule = new Rule(order++, entry.getKey(), entry.getValue());
+            Node node = root;
+            for (String segment : splitPattern(entry.getKey())) {
+                node = node.child(segment);
+            }
+            if (node.rule == null) {
+                node.rule = rule;
+            }
+        }
+        root.freeze();
+        return new RoutePermissionMatcher(root);
+    }
+
+    /**
+     * Returns the first declared rule matching the path, or null when no pattern matches.
+     */
+    public Rule match(String path) {
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return null;
+        }
+        return match(root, path, 1);
+    }
+
+    // pos is the start index of the next segment, or -1 once the whole path is consumed
+    private static Rule match(Node node, String path, int pos) {
+        Rule best = null;
+
+        if (node.doubleWildcard != null) {
+            // "**" may swallow zero or more segments
+            int p = pos;
+            while (true) {
+                best = earliest(best, match(node.doubleWildcard, path, p));
+                if (p < 0) break;
+                p = nextSegment(path, p);
+            }
+        }
+
+        if (pos < 0) {
+            return earliest(best, node.rule);
+        }
+
+        int end = segmentEnd(path, pos);
+        int next = nextSegment(path, pos);
+        int length = end - pos;
+
+        for (int i = 0; i < node.literalKeys.length; i++) {
+            String key = node.literalKeys[i];
+            if (key.length() == length && path.regionMatches(pos, key, 0, length)) {
+                best = earliest(best, match(node.literalChildren[i], path, next));
+                break;
+            }
+        }
+
+        if (node.wildcard != null && length > 0) {
+            best = earliest(best, match(node.wildcard, path, next));
+        }
+
+        return best;
+    }
+
+    private static int segmentEnd(String path, int pos) {
+        int slash = path.indexOf('/', pos);
+        return slash < 0 ? path.length() : slash;
+    }
+
+    private static int nextSegment(String path, int pos) {
+        int slash = path.indexOf('/', pos);
+        return slash < 0 ? -1 : slash + 1;
+    }
+
+    private static Rule earliest(Rule a, Rule b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.order <= b.order ? a : b;
+    }
+
+    private static List<String> splitPattern(String pattern) {
+        String trimmed = pattern.startsWith("/") ? pattern.substring(1) : pattern;
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int slash = trimmed.indexOf('/', start);
+            if (slash < 0) {
+                segments.add(trimmed.substring(start));
+                return segments;
+            }
+            segments.add(trimmed.substring(start, slash));
+            start = slash + 1;
+        }
+    }
+
+    /**
+     * Permission entry for one route pattern.
+     */
+    public static final class Rule {
+
+        private final int order;
+        private final String pattern;
+        private final Set<String> allowedRoles;
+
+        private Rule(int order, String pattern, List<String> allowedRoles) {
+            this.order = order;
+            this.pattern = pattern;
+            this.allowedRoles = Set.copyOf(allowedRoles);
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public boolean isPublic() {
+            return allowedRoles.isEmpty();
+        }
+
+        public boolean allows(List<String> userRoles) {
+            if (isPublic()) return true;
+            if (userRoles == null) return false;
+            for (int i = 0; i < userRoles.size(); i++) {
+                if (allowedRoles.contains(userRoles.get(i))) return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Node {
+
+        private final List<String> pendingKeys = new ArrayList<>();
+        private final List<Node> pendingChildren = new ArrayList<>();
+
+        private String[] literalKeys;
+        private Node[] literalChildren;
+        private Node wildcard;
+        private Node doubleWildcard;
+        private Rule rule;
+
+        private Node child(String segment) {
+            if ("**".equals(segment)) {
+                if (doubleWildcard == null) doubleWildcard = new Node();
+                return doubleWildcard;
+            }
+            if ("*".equals(segment) || (segment.startsWith("{") && segment.endsWith("}"))) {
+                if (wildcard == null) wildcard = new Node();
+                return wildcard;
+            }
+            int index = pendingKeys.indexOf(segment);
+            if (index >= 0) {
+                return pendingChildren.get(index);
+            }
+            Node node = new Node();
+            pendingKeys.add(segment);
+            pendingChildren.add(node);
+            return node;
+        }
+
+        // Flatten child lists into arrays so lookups only do index scans
+        private void freeze() {
+            literalKeys = pendingKeys.toArray(new String[0]);
+            literalChildren = pendingChildren.toArray(new Node[0]);
+            for (Node node : literalChildren) {
+                node.freeze();
+            }
+            if (wildcard != null) wildcard.freeze();
+            if (doubleWildcard != null) doubleWildcard.freeze();
+        }
+    }
+}
@@ -1,81 +1,50 @@
 package com.tvs.util;
 
-import io.jsonwebtoken.Claims;
+import com.tvs.security.Identity;
+import com.tvs.security.JwtVerifier;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
-import java.security.Key;
 import java.util.Date;
 import java.util.List;
-import java.util.function.Function;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final JwtVerifier jwtVerifier;
+    private final VerifiedTokenCache tokenCache;
 
     @Value("${jwt.expiration}")
     private long expiration;
 
-    // Generate signing key from secret
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-    }
-
     // Generate JWT token
     public String generateToken(String userId, List<String> roles) {
         return Jwts.builder()
                 .setSubject(userId)
-                .claim("roles", roles)
+                .claim(JwtVerifier.ROLES_CLAIM, roles)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(jwtVerifier.signingKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    // Extract username (subject) from token
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    // Extract roles from token
-    public List<String> extractRoles(String token) {
-        Claims claims = extractAllClaims(token);
-        return (List<String>) claims.get("roles");
-    }
-
-    // Validate token (not expired)
-    public Boolean validateToken(String token) {
-        return !isTokenExpired(token);
-    }
-
-    // Check if token is expired
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    // Extract expiration date from token
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    // Extract specific claim using a resolver function
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    // Extract all claims from token
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies the token once and returns its identity. Repeat calls with the same
+     * token are answered from the cache until the token expires.
+     * Throws a JwtException if the token is invalid or expired.
+     */
+    public Identity verify(String token) {
+        String key = tokenCache.keyFor(token);
+        Identity cached = tokenCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Identity identity = jwtVerifier.verify(token);
+        tokenCache.put(key, identity);
+        return identity;
     }
 }
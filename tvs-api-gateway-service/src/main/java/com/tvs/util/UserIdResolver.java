@@ -0,0 +1,89 @@
+package com.tvs.util;
+
+import com.tvs.cache.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps a JWT subject (email) to the user's UUID.
+ *
+ * The lookup against user-service happens once per email; afterwards the id is
+ * served from a bounded in-memory map, so downstream services no longer have to
+ * call /api/users/by-email on every request. Entries expire after ttl-ms so a
+ * re-registered email picks up its new id, and a full map sheds a tenth of its
+ * entries (expired ones first) instead of starting over empty.
+ *
+ * Exposed on /actuator/metrics as gateway.userid.cache.*.
+ */
+@Slf4j
+@Component
+public class UserIdResolver implements MeterBinder {
+
+    private final WebClient webClient;
+    private final Map<String, Entry> userIds = new ConcurrentHashMap<>();
+
+    private final CacheStats stats = new CacheStats("gateway.userid.cache");
+
+    @Value("${userservice.url}")
+    private String userServiceUrl;
+
+    @Value("${identity.user-id-cache.max-size:50000}")
+    private int maxSize;
+
+    @Value("${identity.user-id-cache.ttl-ms:3600000}")
+    private long ttlMs;
+
+    private record Entry(UUID userId, long expiresAt) {
+    }
+
+    public UserIdResolver(WebClient.Builder webClientBuilder) {
+        this.webClient = webClientBuilder.build();
+    }
+
+    public Mono<UUID> resolve(String email) {
+        Entry cached = userIds.get(email);
+        if (cached != null) {
+            if (cached.expiresAt > System.currentTimeMillis()) {
+                stats.hit();
+                return Mono.just(cached.userId);
+            }
+            if (userIds.remove(email, cached)) {
+                stats.evicted();
+            }
+        }
+        stats.miss();
+        return webClient.get()
+                .uri(userServiceUrl + "/api/users/by-email/{email}", email)
+                .retrieve()
+                .bodyToMono(UUID.class)
+                .doOnNext(userId -> put(email, userId))
+                .doOnError(ex -> log.warn("Failed to resolve userId for {}: {}", email, ex.getMessage()));
+    }
+
+    private void put(String email, UUID userId) {
+        long now = System.currentTimeMillis();
+        if (userIds.size() >= maxSize && !userIds.containsKey(email)) {
+            userIds.entrySet().removeIf(e -> {
+                boolean expired = e.getValue().expiresAt <= now;
+                if (expired) stats.evicted();
+                return expired;
+            });
+            stats.shed(userIds, maxSize);
+        }
+        userIds.put(email, new Entry(userId, now + ttlMs));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        stats.bindTo(registry, userIds, "User id lookups", "User ids currently cached");
+    }
+}
@@ -0,0 +1,91 @@
+package com.tvs.util;
+
+import com.tvs.cache.CacheStats;
+import com.tvs.security.Identity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of already-verified tokens, keyed by SHA-256 digest of the token
+ * so raw bearer tokens are never held in memory. Entries live until the token's exp.
+ *
+ * Exposed on /actuator/metrics as gateway.jwt.cache.*.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private final Map<String, Identity> entries = new ConcurrentHashMap<>();
+
+    private final CacheStats stats = new CacheStats("gateway.jwt.cache");
+
+    // MessageDigest instances are not thread-safe; keep one per thread
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(VerifiedTokenCache::newDigest);
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    /**
+     * Cache key of a token. Computed once per request and passed to {@link #get} and {@link #put}.
+     */
+    public String keyFor(String token) {
+        byte[] hash = sha256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    public Identity get(String key) {
+        Identity identity = entries.get(key);
+        if (identity == null) {
+            stats.miss();
+            return null;
+        }
+        if (identity.isExpired(System.currentTimeMillis())) {
+            if (entries.remove(key, identity)) {
+                stats.evicted();
+            }
+            stats.miss();
+            return null;
+        }
+        stats.hit();
+        return identity;
+    }
+
+    public void put(String key, Identity identity) {
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, identity);
+    }
+
+    // Drop expired entries first, then shed to make room if the cache is still full
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().isExpired(now);
+            if (expired) stats.evicted();
+            return expired;
+        });
+        stats.shed(entries, maxSize);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        stats.bindTo(registry, entries, "Verified-token cache lookups", "Verified tokens currently cached");
+    }
+}
@@ -0,0 +1,109 @@
+package com.tvs.filter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route permission lookup: the compiled trie against the per-request regex matching the
+ * filter used before, over a mix of paths weighted like gateway traffic.
+ *
+ * Run with:
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main RoutePermissionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutePermissionBenchmark {
+
+    private static final List<String> ROLES = List.of("USER");
+
+    // Mostly usage and plan reads, some logins, a few admin calls
+    private static final String[] PATHS = {
+            "/api/plan-usage/3f1c2a9e-0c51-4a55-9c1b-0f6f4f0c2b11",
+            "/api/plan-usage/consume",
+            "/api/plan-usage/3f1c2a9e-0c51-4a55-9c1b-0f6f4f0c2b11/feature/Swap/history",
+            "/api/v1/plans/7d4a7d0e-1f7b-4a8e-8a63-5b0f5cc5e2aa",
+            "/api/v1/plans/active",
+            "/api/subscriptions/9a0b3c1d-2e4f-4a5b-8c6d-7e8f9a0b1c2d",
+            "/api/users/profile",
+            "/api/users/login",
+            "/api/orders/9a0b3c1d-2e4f-4a5b-8c6d-7e8f9a0b1c2d/plans",
+            "/api/v1/plans/7d4a7d0e-1f7b-4a8e-8a63-5b0f5cc5e2aa/activate",
+    };
+
+    private final RoutePermissionMatcher trie = RoutePermissionMatcher.compile(JwtAuthenticationFilter.ROLE_MAPPING);
+
+    @Benchmark
+    public void trie(Blackhole bh) {
+        for (String path : PATHS) {
+            RoutePermissionMatcher.Rule rule = trie.match(path);
+            bh.consume(rule == null || rule.isPublic() || rule.allows(ROLES));
+        }
+    }
+
+    @Benchmark
+    public void regex(Blackhole bh) {
+        for (String path : PATHS) {
+            bh.consume(RegexMatcher.isPublicEndpoint(path) || RegexMatcher.isRoleAllowed(path, ROLES));
+        }
+    }
+
+    // The filter's matching before the trie: a regex built and run per pattern per request
+    private static final class RegexMatcher {
+
+        private static final Map<String, List<String>> MAPPING = JwtAuthenticationFilter.ROLE_MAPPING;
+
+        static boolean isPublicEndpoint(String path) {
+            return MAPPING.entrySet().stream()
+                    .filter(e -> e.getValue().isEmpty())
+                    .anyMatch(e -> pathMatches(e.getKey(), path));
+        }
+
+        static boolean isRoleAllowed(String path, List<String> userRoles) {
+            for (Map.Entry<String, List<String>> entry : MAPPING.entrySet()) {
+                if (pathMatches(entry.getKey(), path)) {
+                    List<String> allowedRoles = entry.getValue();
+                    if (allowedRoles.isEmpty()) return true;
+                    if (userRoles == null || userRoles.isEmpty()) return false;
+                    for (String role : userRoles) {
+                        if (allowedRoles.contains(role)) return true;
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        static boolean pathMatches(String pattern, String path) {
+            String escaped = pattern
+                    .replace(".", "\\.")
+                    .replace("?", "\\?")
+                    .replace("+", "\\+")
+                    .replace("^", "\\^")
+                    .replace("$", "\\$")
+                    .replace("(", "\\(")
+                    .replace(")", "\\)")
+                    .replace("|", "\\|");
+            escaped = escaped.replaceAll("\\{[^/]+\\}", "[^/]+");
+            escaped = escaped.replace("**", ".*");
+            escaped = escaped.replace("*", "[^/]+");
+            return path.matches("^" + escaped + "$");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.tvs.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutePermissionMatcherTest {
+
+    private static final List<String> USER = List.of("USER");
+    private static final List<String> ADMIN = List.of("ADMIN");
+
+    private final RoutePermissionMatcher matcher = RoutePermissionMatcher.compile(JwtAuthenticationFilter.ROLE_MAPPING);
+
+    @Test
+    void publicEndpointsNeedNoToken() {
+        for (String path : List.of(
+                "/api/users/login",
+                "/api/users/register",
+                "/api/users/forgot-password/request",
+                "/api/users/forgot-password/verify",
+                "/api/orders/u1/assign-free/p1",
+                "/api/subscriptions/u1/assign-free/p1",
+                "/api/v1/plans/active",
+                "/api/v1/plans/preview")) {
+            assertTrue(matcher.match(path).isPublic(), path);
+        }
+    }
+
+    @Test
+    void adminOnlyEndpointsRejectUsers() {
+        for (String path : List.of(
+                "/api/orders/all",
+                "/api/users/all",
+                "/api/users/batch",
+                "/api/v1/plans/123/activate",
+                "/api/v1/plans/123/deactivate",
+                "/api/v1/plans/reprice",
+                "/api/plan-usage/overage/2026-10/run",
+                "/api/notifications/send-email",
+                "/internal/metrics")) {
+            RoutePermissionMatcher.Rule rule = matcher.match(path);
+            assertFalse(rule.isPublic(), path);
+            assertFalse(rule.allows(USER), path);
+            assertTrue(rule.allows(ADMIN), path);
+        }
+    }
+
+    @Test
+    void userEndpointsAllowBothRoles() {
+        for (String path : List.of(
+                "/api/plan-usage/sub-1",
+                "/api/plan-usage/consume",
+                "/api/plan-usage/sub-1/feature/Swap/history",
+                "/api/subscriptions/u1",
+                "/api/users/profile",
+                "/api/users/count",
+                "/api/users/update-password",
+                "/api/users/by-email/a@b.c",
+                "/api/users/u1",
+                "/api/v1/plans/123",
+                "/api/v1/plans/count",
+                "/api/v1/features/count",
+                "/api/orders/u1/plans",
+                "/api/payments/create-order")) {
+            RoutePermissionMatcher.Rule rule = matcher.match(path);
+            assertFalse(rule.isPublic(), path);
+            assertTrue(rule.allows(USER), path);
+            assertTrue(rule.allows(ADMIN), path);
+        }
+    }
+
+    @Test
+    void firstDeclaredMatchWinsAndUnknownPathsDoNotMatch() {
+        assertEquals("/api/v1/plans/*/activate", matcher.match("/api/v1/plans/123/activate").getPattern());
+        assertEquals("/api/users/**", matcher.match("/api/users/u1").getPattern());
+        assertFalse(matcher.match("/api/users/u1").allows(List.of()));
+        assertNull(matcher.match("/actuator/health"));
+        assertNull(matcher.match("relative/path"));
+    }
+}
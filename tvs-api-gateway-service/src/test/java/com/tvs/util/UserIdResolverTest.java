@@ -0,0 +1,65 @@
+package com.tvs.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserIdResolverTest {
+
+    // Stands in for user-service: every lookup returns a fresh id
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @Test
+    void resolvesEachEmailOnceUntilItExpires() {
+        UserIdResolver resolver = resolver(100, 3_600_000L);
+        UUID first = resolver.resolve("a@tvs.com").block();
+        assertEquals(first, resolver.resolve("a@tvs.com").block());
+        assertEquals(1, lookups.get());
+
+        ReflectionTestUtils.setField(resolver, "ttlMs", 0L);
+        UUID stale = resolver.resolve("b@tvs.com").block();
+        assertNotEquals(stale, resolver.resolve("b@tvs.com").block());
+        assertEquals(3, lookups.get());
+    }
+
+    @Test
+    void fullCacheShedsATenthInsteadOfEverything() {
+        UserIdResolver resolver = resolver(100, 3_600_000L);
+        for (int i = 0; i < 100; i++) {
+            resolver.resolve("user" + i + "@tvs.com").block();
+        }
+        resolver.resolve("one-more@tvs.com").block();
+
+        Map<?, ?> cached = (Map<?, ?>) ReflectionTestUtils.getField(resolver, "userIds");
+        assertEquals(91, cached.size());
+        assertTrue(cached.containsKey("one-more@tvs.com"));
+    }
+
+    private UserIdResolver resolver(int maxSize, long ttlMs) {
+        WebClient.Builder userService = WebClient.builder().exchangeFunction(request -> {
+            lookups.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("\"" + UUID.randomUUID() + "\"")
+                    .build());
+        });
+        UserIdResolver resolver = new UserIdResolver(userService);
+        ReflectionTestUtils.setField(resolver, "userServiceUrl", "http://user-service");
+        ReflectionTestUtils.setField(resolver, "maxSize", maxSize);
+        ReflectionTestUtils.setField(resolver, "ttlMs", ttlMs);
+        return resolver;
+    }
+}
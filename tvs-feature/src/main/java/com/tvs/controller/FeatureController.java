@@ -4,6 +4,8 @@ import com.tvs.dto.FeatureRequest;
 import com.tvs.dto.FeatureResponse;
 import com.tvs.service.FeatureService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -29,9 +31,28 @@ public class FeatureController {
         return ResponseEntity.ok(service.getAllFeatures());
     }
 
+    /** Supports If-None-Match so catalog replicas can poll cheaply (304 when unchanged) */
     @GetMapping("/active")
-    public ResponseEntity<List<FeatureResponse>> getActiveFeatures() {
-        return ResponseEntity.ok(service.getActiveFeatures());
+    public ResponseEntity<List<FeatureResponse>> getActiveFeatures(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Read the version before the query: if a write races in, the next poll refetches
+        String etag = service.getCatalogVersion();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.getActiveFeatures());
+    }
+
+    /** Batch lookup: POST body is a JSON array of feature ids */
+    @PostMapping("/batch")
+    public ResponseEntity<List<FeatureResponse>> getFeaturesByIds(@RequestBody List<UUID> ids) {
+        return ResponseEntity.ok(service.getFeaturesByIds(ids));
+    }
+
+    /** Batch lookup with a compact id list, e.g. /batch?ids=id1,id2 */
+    @GetMapping("/batch")
+    public ResponseEntity<List<FeatureResponse>> getFeaturesByIdsParam(@RequestParam("ids") List<UUID> ids) {
+        return ResponseEntity.ok(service.getFeaturesByIds(ids));
     }
 
     @GetMapping("/{id}")
@@ -2,7 +2,9 @@ package com.tvs.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.util.UUID;
 
 @Entity
@@ -40,4 +42,8 @@ public class Feature {
 
     @Column(nullable = false)
     private Boolean isActive;
+
+    // Set on insert and on every update; the catalog ETag is derived from it
+    @UpdateTimestamp
+    private Instant updatedAt;
 }
@@ -0,0 +1,10 @@
+package com.tvs.event;
+
+import java.util.UUID;
+
+/**
+ * Published when a change to a feature affects plan prices
+ * (price per unit, active flag, or deletion).
+ */
+public record FeatureChangedEvent(UUID featureId) {
+}
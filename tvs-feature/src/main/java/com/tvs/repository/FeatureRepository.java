@@ -2,7 +2,9 @@ package com.tvs.repository;
 
 import com.tvs.entity.Feature;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,4 +13,13 @@ public interface FeatureRepository extends JpaRepository<Feature, UUID> {
     Optional<Feature> findByCode(String code);
     List<Feature> findByIsActiveTrue();
     List<Feature> findByNameContainingIgnoreCaseOrCodeContainingIgnoreCase(String name, String code);
+
+    @Query("SELECT COUNT(f) AS features, MAX(f.updatedAt) AS lastUpdated FROM Feature f")
+    CatalogStamp findCatalogStamp();
+
+    /** Feature count and latest write time; together they change on every create, update or delete. */
+    interface CatalogStamp {
+        long getFeatures();
+        Instant getLastUpdated();
+    }
 }
@@ -3,14 +3,23 @@ package com.tvs.service;
 import com.tvs.dto.FeatureRequest;
 import com.tvs.dto.FeatureResponse;
 import com.tvs.entity.Feature;
+import com.tvs.event.FeatureChangedEvent;
 import com.tvs.exception.AlreadyExistsException;
 import com.tvs.exception.ResourceNotFoundException;
 import com.tvs.repository.FeatureRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,6 +27,21 @@ import java.util.stream.Collectors;
 public class FeatureService {
 
     private final FeatureRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Quoted ETag for the current catalog, used by plan-service for If-None-Match polling.
+     * Derived from the stored rows (feature count and latest updatedAt) so every instance
+     * returns the same value and it survives restarts; changes whenever a feature is
+     * created, updated or deleted.
+     */
+    public String getCatalogVersion() {
+        FeatureRepository.CatalogStamp stamp = repository.findCatalogStamp();
+        Instant lastUpdated = stamp.getLastUpdated();
+        long micros = lastUpdated == null ? 0 : TimeUnit.SECONDS.toMicros(lastUpdated.getEpochSecond())
+                + TimeUnit.NANOSECONDS.toMicros(lastUpdated.getNano());
+        return "\"" + stamp.getFeatures() + "-" + Long.toHexString(micros) + "\"";
+    }
 
     public FeatureResponse createFeature(FeatureRequest request) {
         repository.findByCode(request.getCode())
@@ -58,6 +82,25 @@ public class FeatureService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Loads only the requested features in a single query. Unknown ids are skipped;
+     * results follow the order of the first occurrence of each id.
+     */
+    public List<FeatureResponse> getFeaturesByIds(List<UUID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        Set<UUID> distinctIds = new LinkedHashSet<>(ids);
+        Map<UUID, Feature> byId = repository.findAllById(distinctIds)
+                .stream()
+                .collect(Collectors.toMap(Feature::getFeatureId, Function.identity()));
+        return distinctIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
     public FeatureResponse updateFeature(UUID id, FeatureRequest request) {
         Feature feature = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Feature not found"));
@@ -68,6 +111,10 @@ public class FeatureService {
             feature.setCode(request.getCode());
         }
 
+        // Only price-relevant changes need plans repriced
+        boolean repricePlans = !Objects.equals(feature.getPricePerUnit(), request.getPricePerUnit())
+                || !Objects.equals(feature.getIsActive(), request.getIsActive());
+
         feature.setName(request.getName());
         feature.setDescription(request.getDescription());
         feature.setUnit(request.getUnit());
@@ -77,6 +124,9 @@ public class FeatureService {
         feature.setIsActive(request.getIsActive());
 
         repository.save(feature);
+        if (repricePlans) {
+            eventPublisher.publishEvent(new FeatureChangedEvent(id));
+        }
         return mapToResponse(feature);
     }
 
@@ -84,6 +134,7 @@ public class FeatureService {
         Feature feature = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Feature not found"));
         repository.delete(feature);
+        eventPublisher.publishEvent(new FeatureChangedEvent(id));
     }
 
     public List<FeatureResponse> searchFeatures(String keyword) {
@@ -0,0 +1,36 @@
+package com.tvs.service;
+
+import com.tvs.event.FeatureChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+/**
+ * Tells plan-service to reprice the plans that include a changed feature.
+ * Runs off the request thread so feature updates do not wait on plan-service.
+ */
+@Slf4j
+@Component
+public class PlanRepricingNotifier {
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    @Value("${plan.service.url}")
+    private String planServiceUrl;
+
+    @Async
+    @EventListener
+    public void onFeatureChanged(FeatureChangedEvent event) {
+        try {
+            restTemplate.postForEntity(planServiceUrl + "/api/v1/plans/reprice",
+                    List.of(event.featureId()), Void.class);
+        } catch (Exception ex) {
+            log.warn("Plan repricing for feature {} failed: {}", event.featureId(), ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.tvs.service;
+
+import com.tvs.event.FeatureChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class PlanRepricingNotifierTest {
+
+    private final PlanRepricingNotifier notifier = new PlanRepricingNotifier();
+    private MockRestServiceServer planService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(notifier, "planServiceUrl", "http://plan-service");
+        planService = MockRestServiceServer.bindTo(
+                (RestTemplate) ReflectionTestUtils.getField(notifier, "restTemplate")).build();
+    }
+
+    @Test
+    void asksPlanServiceToRepriceTheChangedFeature() {
+        UUID featureId = UUID.randomUUID();
+        planService.expect(requestTo("http://plan-service/api/v1/plans/reprice"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().json("[\"" + featureId + "\"]"))
+                .andRespond(withSuccess("{\"repriced\":3}", MediaType.APPLICATION_JSON));
+
+        notifier.onFeatureChanged(new FeatureChangedEvent(featureId));
+        planService.verify();
+    }
+
+    @Test
+    void planServiceFailureDoesNotReachTheFeatureUpdate() {
+        planService.expect(requestTo("http://plan-service/api/v1/plans/reprice"))
+                .andRespond(withServerError());
+
+        // Logged and dropped: the feature change itself is already committed
+        notifier.onFeatureChanged(new FeatureChangedEvent(UUID.randomUUID()));
+        planService.verify();
+    }
+}
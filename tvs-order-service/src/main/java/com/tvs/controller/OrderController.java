@@ -6,8 +6,9 @@ import com.tvs.dto.FeatureResponse;
 import com.tvs.entity.UserPlanOrder;
 import com.tvs.service.OrderService;
 import com.tvs.service.PlanClientService;
-import com.tvs.config.JwtUtil;
+import com.tvs.security.RequestAuthenticator;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,12 +32,12 @@ public class OrderController {
 
     private final OrderService orderService;
     private final PlanClientService planClientService;
-    private final JwtUtil jwtUtil;
+    private final RequestAuthenticator requestAuthenticator;
 
     // ✅ Assign plan to a user
     @PostMapping("/{userId}/assign/{planId}")
     public ResponseEntity<?> assignPlan(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
             @PathVariable UUID userId,
             @PathVariable UUID planId,
             @RequestParam String razorpayPaymentId,
@@ -44,7 +45,7 @@ public class OrderController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) CharSequence startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
-        validateUserAccess(authHeader, userId);
+        validateUserAccess(request, userId);
 
         PlanResponse plan = planClientService.getPlan(planId);
         if (plan == null) {
@@ -81,11 +82,11 @@ public class OrderController {
     // ✅ Cancel user plan
     @PostMapping("/{userId}/cancel/{planId}")
     public ResponseEntity<Void> cancelPlan(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
             @PathVariable UUID userId,
             @PathVariable UUID planId) {
 
-        validateUserAccess(authHeader, userId);
+        validateUserAccess(request, userId);
         orderService.cancelPlan(userId, planId);
         log.info("Plan {} cancelled for user {}", planId, userId);
         return ResponseEntity.ok().build();
@@ -94,14 +95,16 @@ public class OrderController {
     // ✅ Get all plans for a specific user
     @GetMapping("/{userId}/plans")
     public ResponseEntity<List<UserPlanDto>> getPlans(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
             @PathVariable UUID userId) {
 
-        validateUserAccess(authHeader, userId);
+        validateUserAccess(request, userId);
         List<UserPlanOrder> orders = orderService.getActivePlans(userId);
+        Map<UUID, PlanResponse> plans = planClientService.getPlans(
+                orders.stream().map(UserPlanOrder::getPlanId).toList());
 
         List<UserPlanDto> dtos = orders.stream()
-                .map(order -> mapToDto(order, planClientService.getPlan(order.getPlanId())))
+                .map(order -> mapToDto(order, plans.get(order.getPlanId())))
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok(dtos);
@@ -113,9 +116,12 @@ public class OrderController {
             @RequestHeader(value = "Authorization", required = false) String authHeader) {
         try {
             List<UserPlanOrder> allOrders = orderService.getAllOrders();
+            // One batch call for the distinct plans instead of one call per order
+            Map<UUID, PlanResponse> plans = planClientService.getPlans(
+                    allOrders.stream().map(UserPlanOrder::getPlanId).toList());
 
             List<UserPlanDto> dtos = allOrders.stream()
-                    .map(order -> mapToDto(order, planClientService.getPlan(order.getPlanId())))
+                    .map(order -> mapToDto(order, plans.get(order.getPlanId())))
                     .collect(Collectors.toList());
 
             return ResponseEntity.ok(dtos);
@@ -139,37 +145,18 @@ public class OrderController {
 
     // --- Utility methods ---
 
-    private void validateUserAccess(String authHeader, UUID pathUserId) {
+    private void validateUserAccess(HttpServletRequest request, UUID pathUserId) {
+        UUID actualUserId;
         try {
-            String token = authHeader != null && authHeader.startsWith("Bearer ")
-                    ? authHeader.substring(7)
-                    : authHeader;
-            String tokenEmail = jwtUtil.extractEmail(token);
-
-            UUID actualUserId = fetchUserIdByEmail(tokenEmail);
-
-            if (!actualUserId.equals(pathUserId)) {
-                throw new RuntimeException("Forbidden: User mismatch");
-            }
+            actualUserId = requestAuthenticator.authenticate(request::getHeader).userId();
         } catch (Exception ex) {
             throw new RuntimeException("Unauthorized or missing user info headers");
         }
-    }
-
-    private UUID fetchUserIdByEmail(String email) {
-        try {
-            return WebClient.create()
-                    .get()
-                    .uri("http://localhost:9003/api/users/by-email/{email}", email)
-                    .retrieve()
-                    .bodyToMono(UUID.class)
-                    .block();
-        } catch (Exception ex) {
-            log.error("Failed to fetch userId for email {}: {}", email, ex.getMessage());
-            throw new RuntimeException("Unable to verify user identity");
+        if (!actualUserId.equals(pathUserId)) {
+            throw new RuntimeException("Forbidden: User mismatch");
         }
     }
-    
+
     private String fetchUserName(UUID userId) {
         try {
             return WebClient.create()
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "user_plan_orders")
+@Table(name = "user_plan_orders",
+        indexes = @Index(name = "idx_user_plan_orders_active_end_date", columnList = "is_active, end_date"))
 @Getter
 @Setter
 @NoArgsConstructor
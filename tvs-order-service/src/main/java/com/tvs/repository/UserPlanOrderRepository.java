@@ -2,11 +2,27 @@ package com.tvs.repository;
 
 import com.tvs.entity.UserPlanOrder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 public interface UserPlanOrderRepository extends JpaRepository<UserPlanOrder, UUID> {
     List<UserPlanOrder> findByUserIdAndIsActiveTrue(UUID userId);
-    List<UserPlanOrder> findByIsActiveTrue();
     long countByIsActiveTrue();
+
+    /**
+     * Deactivates at most {@code limit} orders that ended before {@code today}, in its own
+     * transaction. Returns the number of rows changed; call again until it is below the limit.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE user_plan_orders SET is_active = false, updated_at = :now " +
+                   "WHERE is_active = true AND end_date < :today LIMIT :limit", nativeQuery = true)
+    int deactivateExpired(@Param("today") LocalDate today, @Param("now") LocalDateTime now, @Param("limit") int limit);
 }
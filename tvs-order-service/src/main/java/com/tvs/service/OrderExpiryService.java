@@ -1,35 +1,44 @@
 package com.tvs.service;
 
-import com.tvs.entity.UserPlanOrder;
 import com.tvs.repository.UserPlanOrderRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderExpiryService {
 
     private final UserPlanOrderRepository repository;
 
-    /** ✅ Runs every day at midnight */
+    @Value("${order.expiry.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * ✅ Runs every day at midnight. Expired orders are switched off with set-based
+     * UPDATEs of at most chunk-size rows each (one short transaction per chunk) on the
+     * (is_active, end_date) index, instead of loading every active order.
+     * Returns the number of orders deactivated.
+     */
     @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
-    public void deactivateExpiredOrders() {
-        List<UserPlanOrder> activeOrders = repository.findByIsActiveTrue();
+    public int deactivateExpiredOrders() {
+        long started = System.nanoTime();
         LocalDate today = LocalDate.now();
+        int total = 0;
+        int chunk;
+        do {
+            chunk = repository.deactivateExpired(today, LocalDateTime.now(), chunkSize);
+            total += chunk;
+        } while (chunk == chunkSize);
 
-        for (UserPlanOrder order : activeOrders) {
-            if (order.getEndDate() != null && order.getEndDate().isBefore(today)) {
-                order.setIsActive(false);
-                order.setUpdatedAt(LocalDateTime.now());
-                repository.save(order);
-            }
-        }
+        log.info("Order expiry: deactivated {} orders ending before {} in {} ms",
+                total, today, (System.nanoTime() - started) / 1_000_000);
+        return total;
     }
-}
\ No newline at end of file
+}
@@ -7,7 +7,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class PlanClientService {
@@ -60,4 +67,32 @@ public class PlanClientService {
             return null;
         }
     }
+
+    /**
+     * Batch lookup: fetches each distinct plan once via POST /api/v1/plans/batch.
+     * Plans that could not be loaded are missing from the map (empty map on error).
+     */
+    public Map<UUID, PlanResponse> getPlans(Collection<UUID> planIds) {
+        Set<UUID> distinctIds = planIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            List<PlanResponse> plans = webClient.post()
+                    .uri(planServiceUrl + "/api/v1/plans/batch")
+                    .bodyValue(distinctIds)
+                    .retrieve()
+                    .bodyToFlux(PlanResponse.class)
+                    .collectList()
+                    .block();
+            if (plans == null) return Map.of();
+            return plans.stream()
+                    .collect(Collectors.toMap(PlanResponse::getPlanId, p -> p, (a, b) -> a));
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Map.of();
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package com.tvs.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Hit/miss/eviction counters and size-pressure eviction shared by the in-memory caches
+ * of the services (verified tokens, assembled plans, idempotency keys).
+ *
+ * Registers {name}.requests (tagged with the hit and miss results), {name}.evictions,
+ * {name}.size and {name}.hit.ratio.
+ */
+public class CacheStats {
+
+    private final String name;
+    private final String hitResult;
+    private final String missResult;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CacheStats(String name) {
+        this(name, "hit", "miss");
+    }
+
+    public CacheStats(String name, String hitResult, String missResult) {
+        this.name = name;
+        this.hitResult = hitResult;
+        this.missResult = missResult;
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public void evicted() {
+        evictions.increment();
+    }
+
+    /**
+     * Sheds entries until a tenth of maxSize is free, so a burst of inserts into a full
+     * cache does not evict (or scan) on every insert. Entries rejected by {@code removable}
+     * are kept. Returns the number of entries removed.
+     */
+    public <K, V> int shed(Map<K, V> entries, int maxSize, Predicate<? super V> removable) {
+        int excess = entries.size() - (maxSize - Math.max(1, maxSize / 10));
+        int removed = 0;
+        Iterator<V> it = entries.values().iterator();
+        while (removed < excess && it.hasNext()) {
+            if (removable.test(it.next())) {
+                it.remove();
+                removed++;
+            }
+        }
+        evictions.add(removed);
+        return removed;
+    }
+
+    public <K, V> int shed(Map<K, V> entries, int maxSize) {
+        return shed(entries, maxSize, v -> true);
+    }
+
+    public double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /**
+     * Registers the counters, the size of {@code entries} and the hit ratio.
+     */
+    public void bindTo(MeterRegistry registry, Map<?, ?> entries, String lookups, String size) {
+        FunctionCounter.builder(name + ".requests", hits, LongAdder::sum)
+                .tag("result", hitResult)
+                .description(lookups)
+                .register(registry);
+        FunctionCounter.builder(name + ".requests", misses, LongAdder::sum)
+                .tag("result", missResult)
+                .description(lookups)
+                .register(registry);
+        FunctionCounter.builder(name + ".evictions", evictions, LongAdder::sum)
+                .description("Entries removed on expiry or size pressure")
+                .register(registry);
+        Gauge.builder(name + ".size", entries, Map::size)
+                .description(size)
+                .register(registry);
+        Gauge.builder(name + ".hit.ratio", this, CacheStats::hitRatio)
+                .description("Share of " + lookups.toLowerCase() + " answered from memory")
+                .register(registry);
+    }
+}
@@ -0,0 +1,24 @@
+package com.tvs.security;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Authenticated caller as seen by every service.
+ *
+ * userId is null only for tokens issued before the userId claim was introduced.
+ */
+public record Identity(UUID userId, String email, List<String> roles, long expiresAtMillis) {
+
+    public Identity {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+}
@@ -0,0 +1,40 @@
+package com.tvs.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Auto-configured verification beans for every service that depends on this module.
+ *
+ * JwtVerifier is created when jwt.secret is set, IdentityHeaders when
+ * identity.header.secret is set, and RequestAuthenticator when both are.
+ * A service can still declare its own bean of any of these types.
+ */
+@AutoConfiguration
+public class IdentityConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty("jwt.secret")
+    public JwtVerifier jwtVerifier(@Value("${jwt.secret}") String secret) {
+        return new JwtVerifier(secret);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty("identity.header.secret")
+    public IdentityHeaders identityHeaders(@Value("${identity.header.secret}") String secret) {
+        return new IdentityHeaders(secret);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean({JwtVerifier.class, IdentityHeaders.class})
+    public RequestAuthenticator requestAuthenticator(JwtVerifier jwtVerifier, IdentityHeaders identityHeaders) {
+        return new RequestAuthenticator(jwtVerifier, identityHeaders);
+    }
+}
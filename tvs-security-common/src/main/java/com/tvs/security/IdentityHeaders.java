@@ -0,0 +1,124 @@
+package com.tvs.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * Signed identity headers attached by the API gateway to authenticated requests.
+ *
+ * The gateway signs (userId, email, roles, expiry) with a secret shared with the
+ * downstream services, which recompute the HMAC and check the expiry instead of
+ * asking user-service who the caller is.
+ */
+public class IdentityHeaders {
+
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_EMAIL = "X-User-Email";
+    public static final String USER_ROLES = "X-User-Roles";
+    public static final String EXPIRES = "X-User-Expires";
+    public static final String SIGNATURE = "X-User-Signature";
+
+    public static final List<String> ALL = List.of(USER_ID, USER_EMAIL, USER_ROLES, EXPIRES, SIGNATURE);
+
+    /** Role of identities a service signs for its own calls to another service. */
+    public static final String SERVICE_ROLE = "SERVICE";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    // Mac instances are not thread-safe; keep one per thread
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    public IdentityHeaders(String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    public String sign(UUID userId, String email, List<String> roles, long expiresAt) {
+        byte[] signature = mac.get().doFinal(canonical(userId.toString(), email, String.join(",", roles), expiresAt));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    /**
+     * Signed headers identifying the calling service itself rather than a user, for
+     * direct service-to-service calls. The userId is derived from the service name and
+     * the only role is {@link #SERVICE_ROLE}.
+     */
+    public Map<String, String> forService(String serviceName, long ttlMillis) {
+        UUID userId = UUID.nameUUIDFromBytes(serviceName.getBytes(StandardCharsets.UTF_8));
+        String email = serviceName + "@services.internal";
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        return Map.of(
+                USER_ID, userId.toString(),
+                USER_EMAIL, email,
+                USER_ROLES, SERVICE_ROLE,
+                EXPIRES, Long.toString(expiresAt),
+                SIGNATURE, sign(userId, email, List.of(SERVICE_ROLE), expiresAt));
+    }
+
+    /**
+     * Returns the caller identity from the headers, or throws IllegalStateException
+     * if they are missing, tampered with or expired.
+     *
+     * @param header header lookup, e.g. {@code request::getHeader}
+     */
+    public Identity verify(UnaryOperator<String> header) {
+        String userId = header.apply(USER_ID);
+        String email = header.apply(USER_EMAIL);
+        String roles = header.apply(USER_ROLES);
+        String expires = header.apply(EXPIRES);
+        String signature = header.apply(SIGNATURE);
+
+        if (userId == null || email == null || expires == null || signature == null) {
+            throw new IllegalStateException("Missing identity headers");
+        }
+        if (roles == null) roles = "";
+
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(expires);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Malformed identity expiry");
+        }
+        if (expiresAt < System.currentTimeMillis()) {
+            throw new IllegalStateException("Identity headers expired");
+        }
+
+        byte[] expected = mac.get().doFinal(canonical(userId, email, roles, expiresAt));
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Malformed identity signature");
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new IllegalStateException("Invalid identity signature");
+        }
+
+        List<String> roleList = roles.isEmpty() ? List.of() : Arrays.asList(roles.split(","));
+        return new Identity(UUID.fromString(userId), email, roleList, expiresAt);
+    }
+
+    private static byte[] canonical(String userId, String email, String roles, long expiresAt) {
+        return (userId + "\n" + email + "\n" + roles + "\n" + expiresAt).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance(HMAC_ALGORITHM);
+            m.init(key);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialise identity header MAC", e);
+        }
+    }
+}
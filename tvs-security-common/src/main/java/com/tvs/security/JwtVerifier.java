@@ -0,0 +1,73 @@
+package com.tvs.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Verifies HS256 tokens issued by user-service.
+ *
+ * The signing key and parser are built once and are immutable, so a single
+ * instance can be shared by all request threads.
+ */
+public class JwtVerifier {
+
+    public static final String ROLES_CLAIM = "roles";
+    public static final String USER_ID_CLAIM = "userId";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final SecretKey key;
+    private final JwtParser parser;
+
+    public JwtVerifier(String secret) {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+    }
+
+    /**
+     * Key used to sign tokens, for the issuing service.
+     */
+    public SecretKey signingKey() {
+        return key;
+    }
+
+    /**
+     * Parses and verifies a token, with or without the "Bearer " prefix.
+     * Throws a JwtException if the signature is invalid or the token has expired.
+     */
+    public Identity verify(String bearer) {
+        if (bearer == null || bearer.isBlank()) {
+            throw new IllegalArgumentException("Missing token");
+        }
+        String token = bearer.startsWith(BEARER_PREFIX) ? bearer.substring(BEARER_PREFIX.length()) : bearer;
+        return toIdentity(parser.parseClaimsJws(token.trim()).getBody());
+    }
+
+    private static Identity toIdentity(Claims claims) {
+        Object userId = claims.get(USER_ID_CLAIM);
+        Date expiration = claims.getExpiration();
+        return new Identity(
+                userId != null ? UUID.fromString(userId.toString()) : null,
+                claims.getSubject(),
+                toRoles(claims.get(ROLES_CLAIM)),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE
+        );
+    }
+
+    private static List<String> toRoles(Object roles) {
+        if (roles instanceof List<?> list) {
+            return list.stream().map(String::valueOf).toList();
+        }
+        return List.of();
+    }
+}
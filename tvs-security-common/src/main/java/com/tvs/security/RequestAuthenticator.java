@@ -0,0 +1,43 @@
+package com.tvs.security;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Resolves the caller of an incoming request without any network call.
+ *
+ * Requests routed through the gateway carry signed identity headers. Direct calls
+ * may instead present a bearer token, which is accepted when it carries the userId claim.
+ */
+public class RequestAuthenticator {
+
+    private static final String AUTHORIZATION = "Authorization";
+
+    private final JwtVerifier jwtVerifier;
+    private final IdentityHeaders identityHeaders;
+
+    public RequestAuthenticator(JwtVerifier jwtVerifier, IdentityHeaders identityHeaders) {
+        this.jwtVerifier = jwtVerifier;
+        this.identityHeaders = identityHeaders;
+    }
+
+    /**
+     * Throws IllegalStateException (or a JwtException for a bad bearer token)
+     * when the caller cannot be identified.
+     *
+     * @param header header lookup, e.g. {@code request::getHeader}
+     */
+    public Identity authenticate(UnaryOperator<String> header) {
+        if (header.apply(IdentityHeaders.SIGNATURE) != null) {
+            return identityHeaders.verify(header);
+        }
+        String bearer = header.apply(AUTHORIZATION);
+        if (bearer == null) {
+            throw new IllegalStateException("Missing identity headers and Authorization header");
+        }
+        Identity identity = jwtVerifier.verify(bearer);
+        if (identity.userId() == null) {
+            throw new IllegalStateException("Token does not carry a userId claim");
+        }
+        return identity;
+    }
+}
@@ -0,0 +1,100 @@
+package com.tvs.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of identifying the caller.
+ *
+ * perCallParser is what each service's JwtUtil did before this module: build a
+ * parser and key from the secret, then parse, on every call. The gateway did that
+ * three times per request (validate, username, roles). sharedVerifier is JwtVerifier
+ * with its parser built once, and identityHeaders is the HMAC check downstream
+ * services run on requests routed through the gateway.
+ *
+ * Run with:
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main TokenVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+    private static final String SECRET = "MySuperSecureJwtSecretKeyForProduction1234567890";
+    private static final String HEADER_SECRET = "TvsInternalIdentityHeaderSecretKey2024abcdef";
+
+    private final JwtVerifier verifier = new JwtVerifier(SECRET);
+    private final IdentityHeaders identityHeaders = new IdentityHeaders(HEADER_SECRET);
+
+    private String bearer;
+    private Map<String, String> headers;
+
+    @Setup
+    public void setUp() {
+        UUID userId = UUID.randomUUID();
+        List<String> roles = List.of("USER");
+        long expiresAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        bearer = "Bearer " + Jwts.builder()
+                .setSubject("rider@example.com")
+                .claim(JwtVerifier.USER_ID_CLAIM, userId.toString())
+                .claim(JwtVerifier.ROLES_CLAIM, roles)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(expiresAt))
+                .signWith(verifier.signingKey(), SignatureAlgorithm.HS256)
+                .compact();
+        headers = Map.of(
+                IdentityHeaders.USER_ID, userId.toString(),
+                IdentityHeaders.USER_EMAIL, "rider@example.com",
+                IdentityHeaders.USER_ROLES, String.join(",", roles),
+                IdentityHeaders.EXPIRES, Long.toString(expiresAt),
+                IdentityHeaders.SIGNATURE, identityHeaders.sign(userId, "rider@example.com", roles, expiresAt));
+    }
+
+    @Benchmark
+    public Claims perCallParser() {
+        return Jwts.parserBuilder()
+                .setSigningKey(SECRET.getBytes(StandardCharsets.UTF_8))
+                .build()
+                .parseClaimsJws(bearer.replace("Bearer ", ""))
+                .getBody();
+    }
+
+    @Benchmark
+    public Object gatewayBefore() {
+        perCallParser();
+        perCallParser();
+        return perCallParser();
+    }
+
+    @Benchmark
+    public Identity sharedVerifier() {
+        return verifier.verify(bearer);
+    }
+
+    @Benchmark
+    public Identity identityHeaders() {
+        return identityHeaders.verify(headers::get);
+    }
+}
@@ -1,17 +1,44 @@
 package com.tvs.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.tvs.entity.FeatureUsageHistory;
 import com.tvs.entity.PlanUsage;
+import com.tvs.entity.UsageReservation;
 import com.tvs.entity.UserSubscription;
+import com.tvs.dto.BatchConsumeRequest;
+import com.tvs.dto.ConsumeLineDto;
+import com.tvs.dto.ConsumeLineResultDto;
+import com.tvs.dto.UsageBucketDto;
+import com.tvs.service.IdempotencyStore;
+import com.tvs.service.OverageBillingService;
 import com.tvs.service.PlanUsageService;
-import com.tvs.util.JwtUtils;
+import com.tvs.service.UsageReservationService;
+import com.tvs.service.UsageRollupService;
+import com.tvs.service.UsageStreamBroadcaster;
+import com.tvs.util.HistoryCursor;
+import com.tvs.security.RequestAuthenticator;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Supplier;
 
 @Slf4j
 @RestController
@@ -19,8 +46,20 @@ import java.util.*;
 @RequiredArgsConstructor
 public class PlanUsageController {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+    private static final int MAX_BATCH_CONSUME_ITEMS = 50;
+    private static final int MAX_RECOMMENDATIONS = 20;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final PlanUsageService planUsageService;
-    private final JwtUtils jwtUtils;
+    private final UsageRollupService usageRollupService;
+    private final IdempotencyStore idempotencyStore;
+    private final UsageReservationService usageReservationService;
+    private final UsageStreamBroadcaster usageStreamBroadcaster;
+    private final OverageBillingService overageBillingService;
+    private final RequestAuthenticator requestAuthenticator;
+    private final ObjectMapper objectMapper;
 
     // ✅ Initialize usage for a given subscription and plan (this was missing)
     @PostMapping("/initialize/{subscriptionId}/{planId}")
@@ -40,10 +79,10 @@ public class PlanUsageController {
     // ✅ Get all usage records for a subscription
     @GetMapping("/{subscriptionId}")
     public ResponseEntity<?> getUsage(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
             @PathVariable UUID subscriptionId) {
         try {
-            validateSubscriptionAccess(authHeader, subscriptionId);
+            validateSubscriptionAccess(request, subscriptionId);
             UserSubscription sub = planUsageService.getSubscription(subscriptionId);
             if (sub == null)
                 return ResponseEntity.status(404).body(Map.of("error", "Subscription not found"));
@@ -55,16 +94,118 @@ public class PlanUsageController {
         }
     }
 
-    // ✅ Get history of a feature usage for a given subscription
+    // ✅ Stream live usage of a subscription as Server-Sent Events ("usage" events, one PlanUsage each).
+    // The current usage of every feature is sent first, then each change as it happens.
+    @GetMapping(value = "/{subscriptionId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamUsage(
+            HttpServletRequest request,
+            @PathVariable UUID subscriptionId) {
+        try {
+            validateSubscriptionAccess(request, subscriptionId);
+        } catch (Exception e) {
+            return ResponseEntity.status(400).contentType(MediaType.APPLICATION_JSON).body(Map.of("error", e.getMessage()));
+        }
+        try {
+            SseEmitter emitter = usageStreamBroadcaster.subscribe(
+                    subscriptionId, () -> planUsageService.getUsage(subscriptionId));
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).contentType(MediaType.APPLICATION_JSON).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(400).contentType(MediaType.APPLICATION_JSON).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ✅ Get raw usage rows of a feature for a given subscription, newest first.
+    // Pass the returned nextCursor back as ?cursor= for the following page.
     @GetMapping("/{subscriptionId}/feature/{featureName}/history")
     public ResponseEntity<?> getFeatureHistory(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
+            @PathVariable UUID subscriptionId,
+            @PathVariable String featureName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            validateSubscriptionAccess(request, subscriptionId);
+            if (size < 1)
+                return ResponseEntity.badRequest().body(Map.of("error", "size must be >= 1"));
+
+            HistoryCursor after = cursor == null || cursor.isBlank() ? null : HistoryCursor.decode(cursor);
+            Slice<FeatureUsageHistory> slice = planUsageService.getFeatureHistoryPage(
+                    subscriptionId, featureName, after, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("content", slice.getContent());
+            body.put("size", slice.getSize());
+            body.put("hasNext", slice.hasNext());
+            if (slice.hasNext()) {
+                FeatureUsageHistory tail = slice.getContent().get(slice.getNumberOfElements() - 1);
+                body.put("nextCursor", new HistoryCursor(tail.getUsedAt(), tail.getId()).encode());
+            } else {
+                body.put("nextCursor", null);
+            }
+            return ResponseEntity.ok(body);
+        } catch (Exception e) {
+            return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ✅ Export the full usage history of a feature as NDJSON (one JSON row per line), newest first
+    @GetMapping("/{subscriptionId}/feature/{featureName}/history/export")
+    public ResponseEntity<?> exportFeatureHistory(
+            HttpServletRequest request,
             @PathVariable UUID subscriptionId,
             @PathVariable String featureName) {
         try {
-            validateSubscriptionAccess(authHeader, subscriptionId);
-            List<FeatureUsageHistory> history = planUsageService.getFeatureHistory(subscriptionId, featureName);
-            return ResponseEntity.ok(history);
+            validateSubscriptionAccess(request, subscriptionId);
+        } catch (Exception e) {
+            return ResponseEntity.status(400).contentType(MediaType.APPLICATION_JSON).body(Map.of("error", e.getMessage()));
+        }
+
+        StreamingResponseBody stream = out -> {
+            ObjectWriter writer = objectMapper.writerFor(FeatureUsageHistory.class);
+            planUsageService.exportFeatureHistory(subscriptionId, featureName, h -> {
+                try {
+                    out.write(writer.writeValueAsBytes(h));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(featureName + "-history.ndjson", StandardCharsets.UTF_8)
+                        .build().toString())
+                .body(stream);
+    }
+
+    // ✅ Get hourly or daily usage totals of a feature over a time range (from the rollup tables)
+    @GetMapping("/{subscriptionId}/feature/{featureName}/usage")
+    public ResponseEntity<?> getFeatureUsageBuckets(
+            HttpServletRequest request,
+            @PathVariable UUID subscriptionId,
+            @PathVariable String featureName,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            validateSubscriptionAccess(request, subscriptionId);
+            UsageRollupService.Granularity g = UsageRollupService.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+            LocalDateTime end = to != null ? to : LocalDateTime.now();
+            LocalDateTime start = from != null ? from
+                    : (g == UsageRollupService.Granularity.HOUR ? end.minusDays(1) : end.minusDays(30));
+
+            List<UsageBucketDto> buckets = usageRollupService.getBuckets(subscriptionId, featureName, g, start, end);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("granularity", g.name().toLowerCase(Locale.ROOT));
+            body.put("from", start);
+            body.put("to", end);
+            body.put("rolledUpTo", usageRollupService.getRolledUpTo());
+            body.put("buckets", buckets);
+            return ResponseEntity.ok(body);
         } catch (Exception e) {
             return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
         }
@@ -73,7 +214,7 @@ public class PlanUsageController {
     // ✅ Consume a feature
     @PostMapping("/consume")
     public ResponseEntity<?> consumeFeature(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
             @RequestBody Map<String, Object> body) {
 
         try {
@@ -81,37 +222,248 @@ public class PlanUsageController {
             if (featureName == null)
                 return ResponseEntity.badRequest().body(Map.of("error", "Missing field: featureName"));
 
-            UUID subscriptionId;
-            if (body.containsKey("subscriptionId")) {
-                subscriptionId = UUID.fromString(body.get("subscriptionId").toString());
-                validateSubscriptionAccess(authHeader, subscriptionId);
-            } else if (body.containsKey("userId")) {
-                UUID userId = UUID.fromString(body.get("userId").toString());
-                validateUserAccess(authHeader, userId);
-                Optional<UserSubscription> subOpt = planUsageService.getActiveSubscriptionForUser(userId);
-                if (subOpt.isEmpty())
-                    return ResponseEntity.badRequest().body(Map.of("error", "No active subscription for user"));
-                subscriptionId = subOpt.get().getId();
-            } else {
-                return ResponseEntity.badRequest().body(Map.of("error", "Missing subscriptionId or userId"));
+            UUID subscriptionId = resolveSubscriptionId(request,
+                    body.containsKey("subscriptionId") ? UUID.fromString(body.get("subscriptionId").toString()) : null,
+                    body.containsKey("userId") ? UUID.fromString(body.get("userId").toString()) : null);
+
+            return idempotent(request, subscriptionId, "consume:" + featureName, () -> {
+                boolean success = planUsageService.consumeUnits(subscriptionId, featureName, 1);
+                if (!success)
+                    return ResponseEntity.badRequest().body(Map.of("error", "Insufficient credits for feature: " + featureName));
+
+                return ResponseEntity.ok(Map.of("message", "Feature '" + featureName + "' consumed successfully."));
+            });
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error consuming feature: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ✅ Consume several features of one subscription in one call, all-or-nothing
+    @PostMapping("/consume/batch")
+    public ResponseEntity<?> consumeFeatures(
+            HttpServletRequest request,
+            @RequestBody BatchConsumeRequest body) {
+
+        try {
+            List<ConsumeLineDto> items = body.getItems();
+            if (items == null || items.isEmpty())
+                return ResponseEntity.badRequest().body(Map.of("error", "Missing field: items"));
+            if (items.size() > MAX_BATCH_CONSUME_ITEMS)
+                return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BATCH_CONSUME_ITEMS + " items per batch"));
+            for (ConsumeLineDto item : items) {
+                if (item.getFeatureName() == null || item.getFeatureName().isBlank() || item.getUnits() < 1)
+                    return ResponseEntity.badRequest().body(Map.of("error", "Each item needs a featureName and units >= 1"));
             }
 
-            boolean success = planUsageService.consumeUnits(subscriptionId, featureName, 1);
-            if (!success)
+            // Authentication and subscription lookup happen once for the whole batch
+            UUID subscriptionId = resolveSubscriptionId(request, body.getSubscriptionId(), body.getUserId());
+
+            return idempotent(request, subscriptionId, "batch:" + items, () -> {
+                List<ConsumeLineResultDto> results = planUsageService.consumeBatch(subscriptionId, items);
+                boolean success = results.stream().allMatch(r -> r.getStatus() == ConsumeLineResultDto.Status.CONSUMED);
+
+                Map<String, Object> response = Map.of(
+                        "subscriptionId", subscriptionId,
+                        "success", success,
+                        "results", results);
+                return success ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+            });
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error consuming features: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ✅ Hold units of a feature (e.g. while a battery is reserved); commit or release the hold later
+    @PostMapping("/reservations")
+    public ResponseEntity<?> reserveFeature(
+            HttpServletRequest request,
+            @RequestBody Map<String, Object> body) {
+
+        try {
+            String featureName = Objects.toString(body.get("featureName"), null);
+            if (featureName == null)
+                return ResponseEntity.badRequest().body(Map.of("error", "Missing field: featureName"));
+            int units = body.containsKey("units") ? Integer.parseInt(body.get("units").toString()) : 1;
+            if (units < 1)
+                return ResponseEntity.badRequest().body(Map.of("error", "units must be >= 1"));
+            Long ttlMs = body.containsKey("ttlSeconds") ? Long.parseLong(body.get("ttlSeconds").toString()) * 1000 : null;
+            if (ttlMs != null && ttlMs < 1000)
+                return ResponseEntity.badRequest().body(Map.of("error", "ttlSeconds must be >= 1"));
+
+            UUID subscriptionId = resolveSubscriptionId(request,
+                    body.containsKey("subscriptionId") ? UUID.fromString(body.get("subscriptionId").toString()) : null,
+                    body.containsKey("userId") ? UUID.fromString(body.get("userId").toString()) : null);
+
+            UsageReservation reservation = usageReservationService.reserve(subscriptionId, featureName, units, ttlMs);
+            if (reservation == null)
                 return ResponseEntity.badRequest().body(Map.of("error", "Insufficient credits for feature: " + featureName));
 
-            return ResponseEntity.ok(Map.of("message", "Feature '" + featureName + "' consumed successfully."));
+            return ResponseEntity.status(201).body(reservation);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
-            log.error("Error consuming feature: {}", e.getMessage());
+            log.error("Error reserving feature: {}", e.getMessage());
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
         }
     }
 
+    // ✅ Consume the held units
+    @PostMapping("/reservations/{reservationId}/commit")
+    public ResponseEntity<?> commitReservation(
+            HttpServletRequest request,
+            @PathVariable UUID reservationId) {
+        UUID userId;
+        try {
+            userId = requestAuthenticator.authenticate(request::getHeader).userId();
+        } catch (Exception e) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized or invalid token"));
+        }
+        try {
+            requireOwnReservation(reservationId, userId);
+            UsageReservation reservation = usageReservationService.commit(reservationId);
+            return ResponseEntity.ok(Map.of("message", "Reservation committed.", "reservation", reservation));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error committing reservation {}: {}", reservationId, e.getMessage());
+            return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ✅ Give the held units back
+    @PostMapping("/reservations/{reservationId}/release")
+    public ResponseEntity<?> releaseReservation(
+            HttpServletRequest request,
+            @PathVariable UUID reservationId) {
+        UUID userId;
+        try {
+            userId = requestAuthenticator.authenticate(request::getHeader).userId();
+        } catch (Exception e) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized or invalid token"));
+        }
+        try {
+            requireOwnReservation(reservationId, userId);
+            UsageReservation reservation = usageReservationService.release(reservationId);
+            return ResponseEntity.ok(Map.of("message", "Reservation released.", "reservation", reservation));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error releasing reservation {}: {}", reservationId, e.getMessage());
+            return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ✅ Plans ranked by what they would cost at this subscription's observed usage, cheapest first
+    @GetMapping("/{subscriptionId}/recommendations")
+    public ResponseEntity<?> getPlanRecommendations(
+            HttpServletRequest request,
+            @PathVariable UUID subscriptionId,
+            @RequestParam(defaultValue = "5") int limit) {
+        try {
+            validateSubscriptionAccess(request, subscriptionId);
+            if (limit < 1)
+                return ResponseEntity.badRequest().body(Map.of("error", "limit must be >= 1"));
+            return ResponseEntity.ok(planUsageService.getPlanRecommendations(
+                    subscriptionId, Math.min(limit, MAX_RECOMMENDATIONS)));
+        } catch (Exception e) {
+            return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ✅ Overage charges of a subscription for a billing period (yyyy-MM)
+    @GetMapping("/{subscriptionId}/overage")
+    public ResponseEntity<?> getOverageCharges(
+            HttpServletRequest request,
+            @PathVariable UUID subscriptionId,
+            @RequestParam String period) {
+        try {
+            validateSubscriptionAccess(request, subscriptionId);
+            return ResponseEntity.ok(overageBillingService.getCharges(subscriptionId, YearMonth.parse(period)));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "period must be yyyy-MM"));
+        } catch (Exception e) {
+            return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ✅ Admin: bill unbilled overage into a billing period (yyyy-MM); safe to repeat
+    @PostMapping("/overage/{period}/run")
+    public ResponseEntity<?> runOverageBilling(
+            HttpServletRequest request,
+            @PathVariable String period) {
+        YearMonth billingPeriod;
+        try {
+            validateAdminAccess(request);
+            billingPeriod = YearMonth.parse(period);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "period must be yyyy-MM"));
+        } catch (Exception e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
+        try {
+            return ResponseEntity.ok(overageBillingService.bill(billingPeriod));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Overage billing for {} failed: {}", period, e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Utility: Run a consume once per Idempotency-Key (when the client sends one).
+    //  Retries get the stored response; server errors are not stored so they can be retried.
+    private ResponseEntity<?> idempotent(HttpServletRequest request, UUID subscriptionId, String fingerprint,
+                                         Supplier<ResponseEntity<?>> consume) {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key == null || key.isBlank())
+            return consume.get();
+        if (key.length() > MAX_IDEMPOTENCY_KEY_LENGTH)
+            return ResponseEntity.badRequest().body(Map.of("error", "Idempotency-Key is too long"));
+
+        try {
+            return idempotencyStore.execute(subscriptionId + ":" + key, fingerprint, consume,
+                    response -> !response.getStatusCode().is5xxServerError());
+        } catch (IdempotencyStore.KeyReusedException e) {
+            return ResponseEntity.unprocessableEntity().body(Map.of("error", e.getMessage()));
+        } catch (IdempotencyStore.InProgressException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Utility: Subscription to consume from, given explicitly or as the user's active one
+    private UUID resolveSubscriptionId(HttpServletRequest request, UUID subscriptionId, UUID userId) {
+        if (subscriptionId != null) {
+            validateSubscriptionAccess(request, subscriptionId);
+            return subscriptionId;
+        }
+        if (userId == null) {
+            throw new IllegalArgumentException("Missing subscriptionId or userId");
+        }
+        validateUserAccess(request, userId);
+        return planUsageService.getActiveSubscriptionForUser(userId)
+                .map(UserSubscription::getId)
+                .orElseThrow(() -> new IllegalArgumentException("No active subscription for user"));
+    }
+
+    //  Utility: Unknown and other users' reservations both answer 404, so ids are not revealed
+    private void requireOwnReservation(UUID reservationId, UUID userId) {
+        UUID subscriptionId = usageReservationService.getReservation(reservationId).getSubscriptionId();
+        UserSubscription sub = planUsageService.getSubscription(subscriptionId);
+        if (sub == null || !userId.equals(sub.getUserId())) {
+            throw new NoSuchElementException("Reservation not found or already ended: " + reservationId);
+        }
+    }
+
     //  Utility: Validate user-subscription ownership
-    private void validateSubscriptionAccess(String authHeader, UUID subscriptionId) {
+    private void validateSubscriptionAccess(HttpServletRequest request, UUID subscriptionId) {
         try {
-            String email = jwtUtils.extractEmail(authHeader);
-            UUID actualUserId = fetchUserIdByEmail(email);
+            UUID actualUserId = requestAuthenticator.authenticate(request::getHeader).userId();
             UserSubscription sub = planUsageService.getSubscription(subscriptionId);
             if (sub == null || !sub.getUserId().equals(actualUserId)) {
                 throw new RuntimeException("Forbidden: Subscription does not belong to user");
@@ -121,11 +473,10 @@ public class PlanUsageController {
         }
     }
 
-    //  Utility: Validate user ID in token
-    private void validateUserAccess(String authHeader, UUID userId) {
+    //  Utility: Validate user ID in the gateway's signed identity headers
+    private void validateUserAccess(HttpServletRequest request, UUID userId) {
         try {
-            String email = jwtUtils.extractEmail(authHeader);
-            UUID actualUserId = fetchUserIdByEmail(email);
+            UUID actualUserId = requestAuthenticator.authenticate(request::getHeader).userId();
             if (!actualUserId.equals(userId))
                 throw new RuntimeException("Forbidden: User mismatch");
         } catch (Exception ex) {
@@ -133,17 +484,15 @@ public class PlanUsageController {
         }
     }
 
-    //  Fetch userId by email via user-service
-    private UUID fetchUserIdByEmail(String email) {
+    //  Utility: Require the ADMIN role in the gateway's signed identity headers
+    private void validateAdminAccess(HttpServletRequest request) {
+        boolean admin;
         try {
-            return WebClient.create()
-                    .get()
-                    .uri("http://localhost:9003/api/users/by-email/{email}", email)
-                    .retrieve()
-                    .bodyToMono(UUID.class)
-                    .block();
+            admin = requestAuthenticator.authenticate(request::getHeader).hasRole("ADMIN");
         } catch (Exception ex) {
-            throw new RuntimeException("Unable to fetch userId for email: " + ex.getMessage());
+            throw new RuntimeException("Unauthorized or invalid token");
         }
+        if (!admin)
+            throw new RuntimeException("Forbidden: Admin role required");
     }
 }
@@ -6,12 +6,12 @@ import com.tvs.entity.UserSubscription;
 import com.tvs.service.PlanClientService;
 import com.tvs.service.PlanUsageService;
 import com.tvs.service.SubscriptionService;
-import com.tvs.util.JwtUtils;
+import com.tvs.security.RequestAuthenticator;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -24,18 +24,18 @@ import java.util.UUID;
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
-    private final JwtUtils jwtUtils;
+    private final RequestAuthenticator requestAuthenticator;
     private final PlanClientService planClientService;
     private final PlanUsageService planUsageService;
 
     @PostMapping("/{userId}/assign/{planId}")
     public ResponseEntity<?> assignSubscription(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
             @PathVariable UUID userId,
             @PathVariable UUID planId,
             @RequestParam(required = false) String startDate
     ) {
-        validateUserAccess(authHeader, userId);
+        validateUserAccess(request, userId);
 
         // Fetch plan details
         PlanResponse plan = planClientService.getPlan(planId);
@@ -81,21 +81,21 @@ public class SubscriptionController {
 
     @DeleteMapping("/{userId}/cancel/{planId}")
     public ResponseEntity<String> cancelSubscription(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
             @PathVariable UUID userId,
             @PathVariable UUID planId
     ) {
-        validateUserAccess(authHeader, userId);
+        validateUserAccess(request, userId);
         subscriptionService.cancelSubscription(userId, planId);
         return ResponseEntity.ok("Subscription cancelled successfully");
     }
 
     @GetMapping("/{userId}")
     public ResponseEntity<List<UserSubscription>> getSubscriptions(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
             @PathVariable UUID userId
     ) {
-        validateUserAccess(authHeader, userId);
+        validateUserAccess(request, userId);
         List<UserSubscription> subs = subscriptionService.getActiveSubscriptions(userId);
         return ResponseEntity.ok(subs);
     }
@@ -150,31 +150,16 @@ public class SubscriptionController {
 
 
     // --- Utility methods ---
-    private void validateUserAccess(String authHeader, UUID pathUserId) {
+    private void validateUserAccess(HttpServletRequest request, UUID pathUserId) {
         try {
-            String email = jwtUtils.extractEmail(authHeader);
-            UUID actualUserId = fetchUserIdByEmail(email);
+            UUID actualUserId = requestAuthenticator.authenticate(request::getHeader).userId();
 
             if (!actualUserId.equals(pathUserId)) {
                 throw new RuntimeException("Forbidden: User mismatch");
             }
         } catch (Exception ex) {
-            log.error("JWT validation failed: {}", ex.getMessage());
+            log.error("Identity validation failed: {}", ex.getMessage());
             throw new RuntimeException("Unauthorized or invalid token");
         }
     }
-
-    private UUID fetchUserIdByEmail(String email) {
-        try {
-            return WebClient.create()
-                    .get()
-                    .uri("http://localhost:9003/api/users/by-email/{email}", email)
-                    .retrieve()
-                    .bodyToMono(UUID.class)
-                    .block();
-        } catch (Exception ex) {
-            log.error("Failed to fetch userId for email {}: {}", email, ex.getMessage());
-            throw new RuntimeException("Unable to verify user identity");
-        }
-    }
 }
@@ -0,0 +1,14 @@
+package com.tvs.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class BatchConsumeRequest {
+    // Either subscriptionId or userId (the user's active subscription)
+    private UUID subscriptionId;
+    private UUID userId;
+    private List<ConsumeLineDto> items;
+}
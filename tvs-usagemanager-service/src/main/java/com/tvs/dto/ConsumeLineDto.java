@@ -0,0 +1,13 @@
+package com.tvs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConsumeLineDto {
+    private String featureName;
+    private int units = 1;
+}
@@ -0,0 +1,24 @@
+package com.tvs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConsumeLineResultDto {
+
+    public enum Status {
+        CONSUMED,
+        FEATURE_NOT_FOUND,
+        INSUFFICIENT_UNITS,
+        // The line itself was fine but another line failed, so nothing was applied
+        NOT_APPLIED
+    }
+
+    private String featureName;
+    private int units;
+    private Status status;
+    private Integer remainingUnits;
+}
@@ -0,0 +1,20 @@
+package com.tvs.dto;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * A plan scored by plan-service against a subscription's usage.
+ */
+@Data
+public class PlanRecommendationDto {
+    private UUID planId;
+    private String name;
+    private String duration;
+    private Double planPrice;
+    private Double projectedOverage;
+    private Double projectedCost;
+    private Double monthlyCost;
+    private Double monthlySavings;
+}
@@ -20,4 +20,5 @@ public class PlanResponse {
     private List<FeatureResponse> features;
     private Double totalPrice;
     private Double discountedPrice;
+    private Boolean allowOverage;
 }
@@ -0,0 +1,16 @@
+package com.tvs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageBucketDto {
+    private LocalDateTime bucketStart;
+    private long unitsUsed;
+    private long events;
+}
@@ -0,0 +1,32 @@
+package com.tvs.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Key of a usage rollup bucket. featureName is stored lower-cased so buckets match
+ * the case-insensitive lookups used elsewhere; bucketStart is the start of the hour
+ * or day.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeatureUsageBucketId implements Serializable {
+
+    @Column(nullable = false)
+    private UUID subscriptionId;
+
+    @Column(nullable = false)
+    private String featureName;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+}
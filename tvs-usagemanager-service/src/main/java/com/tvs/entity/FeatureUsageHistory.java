@@ -6,7 +6,11 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "feature_usage_history")
+@Table(name = "feature_usage_history",
+        indexes = {
+                @Index(name = "idx_usage_history_used_at", columnList = "used_at"),
+                @Index(name = "idx_usage_history_sub_feature_used_at", columnList = "subscription_id, feature_name, used_at")
+        })
 @Data
 @Builder
 @NoArgsConstructor
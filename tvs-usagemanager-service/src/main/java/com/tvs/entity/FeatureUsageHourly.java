@@ -0,0 +1,25 @@
+package com.tvs.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Hourly totals of feature_usage_history, maintained by UsageRollupService.
+ */
+@Entity
+@Table(name = "feature_usage_hourly")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeatureUsageHourly {
+
+    @EmbeddedId
+    private FeatureUsageBucketId id;
+
+    @Column(nullable = false)
+    private Long unitsUsed;
+
+    @Column(nullable = false)
+    private Long events;
+}
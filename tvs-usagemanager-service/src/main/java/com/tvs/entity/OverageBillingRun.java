@@ -0,0 +1,35 @@
+package com.tvs.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of the overage billing run for a billing period (yyyy-MM). A period without
+ * finishedAt was interrupted and is billed again; already billed units are not charged twice.
+ */
+@Entity
+@Table(name = "overage_billing_run")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverageBillingRun {
+
+    @Id
+    @Column(length = 7)
+    private String billingPeriod;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    @Column(nullable = false)
+    private Long charges;
+
+    @Column(nullable = false, precision = 16, scale = 2)
+    private BigDecimal amount;
+}
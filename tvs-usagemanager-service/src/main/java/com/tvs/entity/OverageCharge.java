@@ -0,0 +1,58 @@
+package com.tvs.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Billing ledger line: units of one plan_usage row billed beyond its totalUnits in a
+ * billing period (yyyy-MM). The units billed so far for a usage row are the sum of its
+ * lines, so each run only bills overage that no earlier run has billed.
+ */
+@Entity
+@Table(name = "overage_charge",
+        uniqueConstraints = @UniqueConstraint(name = "uk_overage_charge_period_usage",
+                columnNames = {"billing_period", "usage_id"}),
+        indexes = {
+                @Index(name = "idx_overage_charge_usage", columnList = "usage_id"),
+                @Index(name = "idx_overage_charge_sub_period", columnList = "subscription_id, billing_period")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverageCharge {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "billing_period", nullable = false, length = 7)
+    private String billingPeriod;
+
+    @Column(name = "usage_id", nullable = false)
+    private UUID usageId;
+
+    @Column(name = "subscription_id", nullable = false)
+    private UUID subscriptionId;
+
+    @Column(nullable = false)
+    private UUID featureId;
+
+    @Column(nullable = false)
+    private String featureName;
+
+    @Column(nullable = false)
+    private Integer overageUnits;
+
+    @Column(nullable = false, precision = 12, scale = 4)
+    private BigDecimal pricePerUnit;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
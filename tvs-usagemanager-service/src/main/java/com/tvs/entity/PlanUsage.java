@@ -33,4 +33,10 @@ public class PlanUsage {
     @Builder.Default
     @Column(nullable = false)
     private Integer usedUnits = 0;
+
+    // Copied from the plan at initialization: usedUnits may then pass totalUnits and the
+    // excess is billed by the month-end overage run instead of being refused.
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean allowOverage = false;
 }
@@ -0,0 +1,32 @@
+package com.tvs.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of one day's auto-renewal run: the last expired subscription id whose
+ * chunk is committed. Written in the same transaction as each chunk, so a run that
+ * dies midway resumes right after the last committed chunk.
+ */
+@Entity
+@Table(name = "subscription_renewal_checkpoint")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionRenewalCheckpoint {
+
+    @Id
+    private LocalDate runDate;
+
+    private UUID lastSubscriptionId;
+
+    @Column(nullable = false)
+    private Long renewed;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,24 @@
+package com.tvs.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Highest usage-journal sequence number whose effect is already in plan_usage.
+ * Written in the same transaction as each write-behind flush.
+ */
+@Entity
+@Table(name = "usage_journal_checkpoint")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageJournalCheckpoint {
+
+    @Id
+    @Column(length = 100)
+    private String nodeId;
+
+    @Column(nullable = false)
+    private Long lastSeq;
+}
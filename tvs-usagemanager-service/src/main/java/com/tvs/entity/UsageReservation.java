@@ -0,0 +1,39 @@
+package com.tvs.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Units held for a subscription's feature until they are committed or released.
+ * The held units are already counted as used in the live counters; the row only
+ * exists so open holds survive a restart. It is deleted when the hold ends.
+ */
+@Entity
+@Table(name = "usage_reservation")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageReservation {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID subscriptionId;
+
+    @Column(nullable = false)
+    private String featureName;
+
+    @Column(nullable = false)
+    private Integer units;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,25 @@
+package com.tvs.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * History rows with usedAt up to rolledUpTo are already counted in the rollup tables.
+ */
+@Entity
+@Table(name = "usage_rollup_watermark")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageRollupWatermark {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime rolledUpTo;
+}
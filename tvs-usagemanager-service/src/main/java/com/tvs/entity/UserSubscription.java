@@ -5,7 +5,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 @Entity
-@Table(name = "user_subscriptions")
+@Table(name = "user_subscriptions",
+        indexes = @Index(name = "idx_user_subscriptions_active_end_date", columnList = "is_active, end_date"))
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor @Builder
 public class UserSubscription {
@@ -0,0 +1,14 @@
+package com.tvs.repository;
+
+import com.tvs.entity.FeatureUsageBucketId;
+import com.tvs.entity.FeatureUsageDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface FeatureUsageDailyRepository extends JpaRepository<FeatureUsageDaily, FeatureUsageBucketId> {
+    List<FeatureUsageDaily> findByIdSubscriptionIdAndIdFeatureNameAndIdBucketStartBetweenOrderByIdBucketStart(
+            UUID subscriptionId, String featureName, LocalDateTime from, LocalDateTime to);
+}
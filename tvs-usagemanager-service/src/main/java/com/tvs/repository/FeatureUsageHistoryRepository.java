@@ -1,12 +1,33 @@
 package com.tvs.repository;
 
 import com.tvs.entity.FeatureUsageHistory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 public interface FeatureUsageHistoryRepository extends JpaRepository<FeatureUsageHistory, UUID> {
-    List<FeatureUsageHistory> findBySubscriptionIdAndFeatureNameIgnoreCaseOrderByUsedAtDesc(UUID subscriptionId, String featureName);
-}
 
+    // Keyset pagination over (usedAt, id), newest first; both queries are range scans
+    // on idx_usage_history_sub_feature_used_at (InnoDB appends the id to the index)
+    @Query("SELECT h FROM FeatureUsageHistory h " +
+           "WHERE h.subscriptionId = :subscriptionId AND h.featureName = :featureName " +
+           "ORDER BY h.usedAt DESC, h.id DESC")
+    List<FeatureUsageHistory> findLatest(@Param("subscriptionId") UUID subscriptionId,
+                                         @Param("featureName") String featureName,
+                                         Limit limit);
+
+    @Query("SELECT h FROM FeatureUsageHistory h " +
+           "WHERE h.subscriptionId = :subscriptionId AND h.featureName = :featureName " +
+           "AND (h.usedAt < :usedAt OR (h.usedAt = :usedAt AND h.id < :id)) " +
+           "ORDER BY h.usedAt DESC, h.id DESC")
+    List<FeatureUsageHistory> findBefore(@Param("subscriptionId") UUID subscriptionId,
+                                         @Param("featureName") String featureName,
+                                         @Param("usedAt") LocalDateTime usedAt,
+                                         @Param("id") UUID id,
+                                         Limit limit);
+}
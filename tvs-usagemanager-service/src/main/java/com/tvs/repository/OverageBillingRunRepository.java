@@ -0,0 +1,7 @@
+package com.tvs.repository;
+
+import com.tvs.entity.OverageBillingRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OverageBillingRunRepository extends JpaRepository<OverageBillingRun, String> {
+}
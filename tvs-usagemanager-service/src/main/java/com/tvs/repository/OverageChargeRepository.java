@@ -0,0 +1,12 @@
+package com.tvs.repository;
+
+import com.tvs.entity.OverageCharge;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface OverageChargeRepository extends JpaRepository<OverageCharge, UUID> {
+
+    List<OverageCharge> findBySubscriptionIdAndBillingPeriod(UUID subscriptionId, String billingPeriod);
+}
@@ -2,6 +2,7 @@ package com.tvs.repository;
 
 import com.tvs.entity.PlanUsage;
 import org.springframework.data.jpa.repository.JpaRepository;
+
 import java.util.List;
 import java.util.UUID;
 
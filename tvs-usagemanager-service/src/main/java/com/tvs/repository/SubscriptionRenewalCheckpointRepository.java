@@ -0,0 +1,9 @@
+package com.tvs.repository;
+
+import com.tvs.entity.SubscriptionRenewalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+
+public interface SubscriptionRenewalCheckpointRepository extends JpaRepository<SubscriptionRenewalCheckpoint, LocalDate> {
+}
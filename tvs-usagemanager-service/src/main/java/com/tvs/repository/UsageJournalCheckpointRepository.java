@@ -0,0 +1,7 @@
+package com.tvs.repository;
+
+import com.tvs.entity.UsageJournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UsageJournalCheckpointRepository extends JpaRepository<UsageJournalCheckpoint, String> {
+}
@@ -0,0 +1,9 @@
+package com.tvs.repository;
+
+import com.tvs.entity.UsageReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface UsageReservationRepository extends JpaRepository<UsageReservation, UUID> {
+}
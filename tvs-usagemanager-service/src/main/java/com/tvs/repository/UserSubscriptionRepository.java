@@ -1,7 +1,14 @@
 package com.tvs.repository;
 import com.tvs.entity.UserSubscription;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 public interface UserSubscriptionRepository extends JpaRepository<UserSubscription, UUID> {
@@ -9,4 +16,23 @@ public interface UserSubscriptionRepository extends JpaRepository<UserSubscripti
     List<UserSubscription> findByEndDateBeforeAndIsActiveTrue(LocalDate date);
     List<UserSubscription> findByUserIdAndIsActiveTrueAndEndDateAfter(UUID userId, LocalDate today);
     List<UserSubscription> findByUserIdAndIsActiveTrueAndEndDateAfterOrderByCreatedAtDescUpdatedAtDesc(UUID userId, LocalDate today);
+
+    // Keyset page of subscriptions due for renewal, in id order
+    @Query("SELECT s FROM UserSubscription s " +
+           "WHERE s.isActive = true AND s.endDate < :today AND s.id > :afterId ORDER BY s.id")
+    List<UserSubscription> findExpiredAfter(@Param("today") LocalDate today, @Param("afterId") UUID afterId, Limit limit);
+
+    @Modifying
+    @Query("UPDATE UserSubscription s SET s.isActive = false, s.updatedAt = :now WHERE s.id IN :ids AND s.isActive = true")
+    int deactivateAll(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Deactivates at most {@code limit} subscriptions that ended before {@code today}, in its
+     * own transaction. Returns the number of rows changed; call again until it is below the limit.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE user_subscriptions SET is_active = false, updated_at = :now " +
+                   "WHERE is_active = true AND end_date < :today LIMIT :limit", nativeQuery = true)
+    int deactivateExpired(@Param("today") LocalDate today, @Param("now") LocalDateTime now, @Param("limit") int limit);
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.tvs.service;
+
+import com.tvs.dto.FeatureResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class FeatureClientService {
+
+    private final WebClient.Builder webClientBuilder;
+
+    @Value("${feature.service.url}")
+    private String featureServiceUrl;
+
+    @Value("${feature.price.ttl-ms:300000}")
+    private long priceTtlMs;
+
+    private volatile PriceTable prices;
+
+    private record PriceTable(Map<UUID, BigDecimal> byFeatureId, long fetchedAt) {
+    }
+
+    /**
+     * pricePerUnit of every feature, active or not, keyed by featureId. Fetched in one
+     * call and reused for feature.price.ttl-ms. Features without a price are left out.
+     */
+    public Map<UUID, BigDecimal> getPriceTable() {
+        long now = System.currentTimeMillis();
+        PriceTable table = prices;
+        if (table != null && now - table.fetchedAt() < priceTtlMs) {
+            return table.byFeatureId();
+        }
+        List<FeatureResponse> features = webClientBuilder.baseUrl(featureServiceUrl).build().get()
+                .uri("/api/v1/features")
+                .retrieve()
+                .bodyToFlux(FeatureResponse.class)
+                .collectList()
+                .block();
+        if (features == null || features.isEmpty()) {
+            throw new IllegalStateException("Feature catalogue is empty or unavailable");
+        }
+        Map<UUID, BigDecimal> byFeatureId = new HashMap<>();
+        for (FeatureResponse feature : features) {
+            if (feature.getPricePerUnit() != null) {
+                byFeatureId.put(feature.getFeatureId(), BigDecimal.valueOf(feature.getPricePerUnit()));
+            }
+        }
+        prices = new PriceTable(Map.copyOf(byFeatureId), now);
+        return prices.byFeatureId();
+    }
+}
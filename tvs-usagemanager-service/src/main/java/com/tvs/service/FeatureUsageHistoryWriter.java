@@ -0,0 +1,210 @@
+package com.tvs.service;
+
+import com.tvs.entity.FeatureUsageHistory;
+import com.tvs.util.TimeOrderedUuid;
+import com.tvs.util.UuidBytes;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Append-only writer for feature_usage_history.
+ *
+ * Consumes hand their history row to a queue of at most usage.history.queue-capacity
+ * rows; one writer thread drains it and inserts up to usage.history.flush-size rows per
+ * JDBC batch, waiting at most usage.history.flush-interval-ms for a batch to fill. When
+ * the queue is full, {@link #submit} waits up to usage.history.offer-timeout-ms and then
+ * fails, so the caller can refuse the consume instead of piling up memory.
+ *
+ * Rows become visible to history queries once their batch is written. Rows still
+ * queued when the process is killed are lost; a normal shutdown drains the queue.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FeatureUsageHistoryWriter implements MeterBinder {
+
+    private static final String INSERT_SQL = "INSERT INTO feature_usage_history " +
+            "(id, subscription_id, feature_id, feature_name, units_used, used_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${usage.history.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${usage.history.flush-size:500}")
+    private int flushSize;
+
+    @Value("${usage.history.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${usage.history.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private BlockingQueue<FeatureUsageHistory> queue;
+    // Free queue capacity; taken before rows are queued, returned when the writer takes them,
+    // so several rows can be queued all at once or not at all
+    private Semaphore slots;
+    private Thread writer;
+    private volatile boolean running;
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>();
+        slots = new Semaphore(queueCapacity);
+        running = true;
+        writer = new Thread(this::drainLoop, "usage-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        // Whatever is left after the writer exits
+        List<FeatureUsageHistory> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int i = 0; i < rest.size(); i += flushSize) {
+            write(rest.subList(i, Math.min(rest.size(), i + flushSize)));
+        }
+    }
+
+    /**
+     * Queues a history row, assigning a time-ordered id. Throws IllegalStateException
+     * if the queue stays full for longer than the offer timeout.
+     */
+    public void submit(FeatureUsageHistory history) {
+        submitAll(List.of(history));
+    }
+
+    /**
+     * Queues the rows of one multi-feature consume, all of them or none: capacity for
+     * every row is reserved before any row becomes visible to the writer. Throws
+     * IllegalStateException, with nothing queued, if that capacity does not free up
+     * within the offer timeout.
+     */
+    public void submitAll(List<FeatureUsageHistory> rows) {
+        boolean accepted;
+        try {
+            accepted = rows.size() <= queueCapacity
+                    && slots.tryAcquire(rows.size(), offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            rejected.add(rows.size());
+            throw new IllegalStateException("Usage history queue is full, try again later");
+        }
+        for (FeatureUsageHistory history : rows) {
+            if (history.getId() == null) {
+                history.setId(TimeOrderedUuid.next());
+            }
+        }
+        queue.addAll(rows);
+    }
+
+    private void drainLoop() {
+        List<FeatureUsageHistory> batch = new ArrayList<>(flushSize);
+        while (running) {
+            try {
+                FeatureUsageHistory first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Linger up to the flush interval for the batch to fill
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < flushSize) {
+                    queue.drainTo(batch, flushSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= flushSize || remaining <= 0) break;
+                    FeatureUsageHistory next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop() was called; write what we have and exit
+            }
+            slots.release(batch.size());
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<FeatureUsageHistory> batch) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            long start = System.nanoTime();
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, h) -> {
+                    ps.setBytes(1, UuidBytes.toBytes(h.getId()));
+                    ps.setBytes(2, UuidBytes.toBytes(h.getSubscriptionId()));
+                    ps.setBytes(3, UuidBytes.toBytes(h.getFeatureId()));
+                    ps.setString(4, h.getFeatureName());
+                    ps.setInt(5, h.getUnitsUsed());
+                    ps.setObject(6, h.getUsedAt());
+                });
+                written.add(batch.size());
+                if (flushTimer != null) {
+                    flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Usage history batch of {} failed (attempt {}/{}): {}",
+                        batch.size(), attempt, MAX_ATTEMPTS, e.getMessage());
+            }
+        }
+        dropped.add(batch.size());
+        log.error("Dropped {} usage history rows after {} attempts", batch.size(), MAX_ATTEMPTS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        flushTimer = Timer.builder("usage.history.flush")
+                .description("JDBC batch insert of usage history rows")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        Gauge.builder("usage.history.queue.depth", this, w -> w.queue.size())
+                .description("History rows waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("usage.history.rows", written, LongAdder::sum)
+                .tag("result", "written")
+                .description("Usage history rows by outcome")
+                .register(registry);
+        FunctionCounter.builder("usage.history.rows", rejected, LongAdder::sum)
+                .tag("result", "rejected")
+                .description("Usage history rows by outcome")
+                .register(registry);
+        FunctionCounter.builder("usage.history.rows", dropped, LongAdder::sum)
+                .tag("result", "dropped")
+                .description("Usage history rows by outcome")
+                .register(registry);
+    }
+}
@@ -0,0 +1,146 @@
+package com.tvs.service;
+
+import com.tvs.cache.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of requests carrying an Idempotency-Key so that a retried
+ * request gets the original result instead of running again. Purely in memory:
+ * the lookup never touches the database.
+ *
+ * Entries live for usage.idempotency.ttl-ms and the store holds at most
+ * usage.idempotency.max-size of them. A retry that arrives while the original is
+ * still running waits for it. Keys are per node, so retries must reach the same
+ * instance (true for a single usagemanager or sticky routing).
+ *
+ * Exposed on /actuator/metrics as usage.idempotency.*.
+ */
+@Component
+public class IdempotencyStore implements MeterBinder {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final CacheStats stats = new CacheStats("usage.idempotency", "replay", "executed");
+
+    @Value("${usage.idempotency.ttl-ms:3600000}")
+    private long ttlMs;
+
+    @Value("${usage.idempotency.max-size:100000}")
+    private int maxSize;
+
+    @Value("${usage.idempotency.in-flight-wait-ms:5000}")
+    private long inFlightWaitMs;
+
+    /**
+     * Runs the action once per key. A repeat with the same key and fingerprint returns
+     * the stored outcome; a repeat with a different fingerprint (same key, different
+     * request) throws {@link KeyReusedException}. Outcomes rejected by {@code keep}
+     * (e.g. transient server errors) are not stored, so the client may retry them.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String fingerprint, Supplier<T> action, Predicate<T> keep) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(fingerprint, now + ttlMs);
+        Entry existing;
+        while ((existing = entries.putIfAbsent(key, entry)) != null && existing.isExpired(now)) {
+            if (entries.remove(key, existing)) stats.evicted();
+        }
+
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new KeyReusedException("Idempotency-Key was already used for a different request");
+            }
+            stats.hit();
+            return (T) existing.await(inFlightWaitMs);
+        }
+
+        if (entries.size() > maxSize) {
+            evict(now);
+        }
+        stats.miss();
+        T outcome;
+        try {
+            outcome = action.get();
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        if (!keep.test(outcome)) {
+            entries.remove(key, entry);
+        }
+        entry.result.complete(outcome);
+        return outcome;
+    }
+
+    // Drop expired entries first; if the store is still full, shed to make room
+    private void evict(long now) {
+        entries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().isExpired(now);
+            if (expired) stats.evicted();
+            return expired;
+        });
+        // Never drop a request that is still running, its retries must wait for it
+        stats.shed(entries, maxSize, e -> e.result.isDone());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        stats.bindTo(registry, entries, "Requests with an Idempotency-Key", "Idempotency keys currently remembered");
+    }
+
+    private static final class Entry {
+
+        private final String fingerprint;
+        private final long expiresAt;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        private Object await(long waitMs) {
+            try {
+                return result.get(waitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new InProgressException("A request with this Idempotency-Key is still being processed");
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InProgressException("Interrupted while waiting for the original request");
+            }
+        }
+    }
+
+    /** The key was first used with a different request body. */
+    public static class KeyReusedException extends RuntimeException {
+        public KeyReusedException(String message) {
+            super(message);
+        }
+    }
+
+    /** The original request is still running after the wait timeout. */
+    public static class InProgressException extends RuntimeException {
+        public InProgressException(String message) {
+            super(message);
+        }
+    }
+}
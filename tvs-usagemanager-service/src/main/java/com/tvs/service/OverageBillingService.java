@@ -0,0 +1,283 @@
+package com.tvs.service;
+
+import com.tvs.entity.OverageBillingRun;
+import com.tvs.entity.OverageCharge;
+import com.tvs.repository.OverageBillingRunRepository;
+import com.tvs.repository.OverageChargeRepository;
+import com.tvs.util.TimeOrderedUuid;
+import com.tvs.util.UuidBytes;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bills usage beyond totalUnits at the feature's pricePerUnit into the overage_charge ledger.
+ * Only rows of plans with allowOverage set can go over quota; the others are capped at
+ * totalUnits by {@link UsageCounterEngine#tryConsume} and never show up here.
+ *
+ * A run splits plan_usage into id-range partitions (by the first byte of the id) and bills
+ * them in parallel. Each partition reads over-quota rows in keyset chunks of chunk-size with
+ * plain JDBC, together with the units already billed for them, prices the difference from
+ * one feature price table fetched per run, and writes the chunk's ledger lines with one
+ * batched INSERT. Memory stays at one chunk per worker whatever the number of subscriptions.
+ * Because only unbilled units are charged, an interrupted run is simply run again.
+ *
+ * When enabled, the previous month is billed once its run has not finished yet. Like the
+ * other jobs here, run it on one node only.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OverageBillingService {
+
+    private static final String SELECT_SQL =
+            "SELECT pu.id, pu.subscription_id, pu.feature_id, pu.feature_name, pu.total_units, pu.used_units, " +
+            "       (SELECT COALESCE(SUM(oc.overage_units), 0) FROM overage_charge oc WHERE oc.usage_id = pu.id) AS billed_units " +
+            "FROM plan_usage pu WHERE pu.used_units > pu.total_units AND pu.id ";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO overage_charge (id, billing_period, usage_id, subscription_id, feature_id, feature_name, " +
+            "overage_units, price_per_unit, amount, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE overage_units = overage_units + VALUES(overage_units), amount = amount + VALUES(amount)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OverageChargeRepository chargeRepository;
+    private final OverageBillingRunRepository runRepository;
+    private final FeatureClientService featureClientService;
+
+    @Value("${usage.overage.enabled:false}")
+    private boolean enabled;
+
+    @Value("${usage.overage.check-interval-ms:3600000}")
+    private long checkIntervalMs;
+
+    @Value("${usage.overage.partitions:16}")
+    private int partitions;
+
+    @Value("${usage.overage.parallelism:4}")
+    private int parallelism;
+
+    @Value("${usage.overage.chunk-size:1000}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Created by the first run, so a node that never bills starts no worker threads
+    private volatile ExecutorService workers;
+    private ScheduledExecutorService scheduler;
+
+    private record UsageRow(UUID id, UUID subscriptionId, UUID featureId, String featureName,
+                            int totalUnits, int usedUnits, int billedUnits) {
+    }
+
+    private record PartitionResult(long charges, BigDecimal amount, long unpriced) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "overage-billing-schedule");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::billPreviousMonthSafely, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        ExecutorService pool = workers;
+        if (pool != null) {
+            pool.shutdownNow();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void billPreviousMonthSafely() {
+        YearMonth period = YearMonth.now().minusMonths(1);
+        try {
+            boolean finished = runRepository.findById(period.toString())
+                    .map(r -> r.getFinishedAt() != null)
+                    .orElse(false);
+            if (!finished) {
+                bill(period);
+            }
+        } catch (Exception e) {
+            log.error("Overage billing for {} failed: {}", period, e.getMessage());
+        }
+    }
+
+    /**
+     * Bills every unbilled overage unit into the given period. Throws IllegalStateException
+     * if a run is already in progress on this node.
+     */
+    public OverageBillingRun bill(YearMonth period) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Overage billing is already running");
+        }
+        try {
+            return billExclusive(period.toString());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Only called under the running flag, so at most one pool is ever created
+    private ExecutorService workers() {
+        if (workers == null) {
+            AtomicInteger n = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(parallelism, r -> {
+                Thread t = new Thread(r, "overage-billing-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return workers;
+    }
+
+    public List<OverageCharge> getCharges(UUID subscriptionId, YearMonth period) {
+        return chargeRepository.findBySubscriptionIdAndBillingPeriod(subscriptionId, period.toString());
+    }
+
+    private OverageBillingRun billExclusive(String period) {
+        long started = System.nanoTime();
+        Map<UUID, BigDecimal> prices = featureClientService.getPriceTable();
+        OverageBillingRun run = runRepository.findById(period)
+                .orElseGet(() -> OverageBillingRun.builder()
+                        .billingPeriod(period).charges(0L).amount(BigDecimal.ZERO).build());
+        run.setStartedAt(LocalDateTime.now());
+        run.setFinishedAt(null);
+        run = runRepository.save(run);
+
+        List<Callable<PartitionResult>> tasks = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            int from = i * 256 / partitions;
+            int to = (i + 1) * 256 / partitions;
+            tasks.add(() -> billPartition(period, prices, from, to));
+        }
+
+        long charges = 0;
+        long unpriced = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        try {
+            for (Future<PartitionResult> result : workers().invokeAll(tasks)) {
+                PartitionResult r = result.get();
+                charges += r.charges();
+                amount = amount.add(r.amount());
+                unpriced += r.unpriced();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Overage billing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Overage billing failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        // Totals of this run; lines billed by an interrupted earlier run of the period stay in the ledger
+        run.setCharges(charges);
+        run.setAmount(amount);
+        run.setFinishedAt(LocalDateTime.now());
+        run = runRepository.save(run);
+        if (unpriced > 0) {
+            log.warn("Overage billing {}: {} usage rows skipped, their feature has no price", period, unpriced);
+        }
+        log.info("Overage billing {}: {} charges, amount {} in {} ms",
+                period, charges, amount, (System.nanoTime() - started) / 1_000_000);
+        return run;
+    }
+
+    // Bills ids whose first byte is in [from, to)
+    private PartitionResult billPartition(String period, Map<UUID, BigDecimal> prices, int from, int to) {
+        byte[] upper = to < 256 ? firstByte(to) : null;
+        String bound = upper != null ? " AND pu.id < ? ORDER BY pu.id LIMIT ?" : " ORDER BY pu.id LIMIT ?";
+        RowMapper<UsageRow> mapper = (rs, n) -> new UsageRow(
+                UuidBytes.fromBytes(rs.getBytes("id")),
+                UuidBytes.fromBytes(rs.getBytes("subscription_id")),
+                UuidBytes.fromBytes(rs.getBytes("feature_id")),
+                rs.getString("feature_name"),
+                rs.getInt("total_units"),
+                rs.getInt("used_units"),
+                rs.getInt("billed_units"));
+
+        long charges = 0;
+        long unpriced = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        byte[] after = firstByte(from);
+        String op = ">= ?";
+        while (true) {
+            List<UsageRow> rows = upper != null
+                    ? jdbcTemplate.query(SELECT_SQL + op + bound, mapper, after, upper, chunkSize)
+                    : jdbcTemplate.query(SELECT_SQL + op + bound, mapper, after, chunkSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> lines = new ArrayList<>();
+            for (UsageRow row : rows) {
+                int units = row.usedUnits() - row.totalUnits() - row.billedUnits();
+                if (units <= 0) {
+                    continue;
+                }
+                BigDecimal price = prices.get(row.featureId());
+                if (price == null) {
+                    unpriced++;
+                    continue;
+                }
+                BigDecimal lineAmount = price.multiply(BigDecimal.valueOf(units)).setScale(2, RoundingMode.HALF_UP);
+                lines.add(new Object[]{
+                        UuidBytes.toBytes(TimeOrderedUuid.next()), period, UuidBytes.toBytes(row.id()),
+                        UuidBytes.toBytes(row.subscriptionId()), UuidBytes.toBytes(row.featureId()),
+                        row.featureName(), units, price, lineAmount, now});
+                amount = amount.add(lineAmount);
+            }
+            if (!lines.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, lines));
+                charges += lines.size();
+            }
+
+            if (rows.size() < chunkSize) {
+                break;
+            }
+            after = UuidBytes.toBytes(rows.get(rows.size() - 1).id());
+            op = "> ?";
+        }
+        return new PartitionResult(charges, amount, unpriced);
+    }
+
+    private static byte[] firstByte(int value) {
+        byte[] bytes = new byte[16];
+        bytes[0] = (byte) value;
+        return bytes;
+    }
+}
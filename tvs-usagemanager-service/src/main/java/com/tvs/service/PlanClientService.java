@@ -1,5 +1,6 @@
 package com.tvs.service;
 
+import com.tvs.dto.PlanRecommendationDto;
 import com.tvs.dto.PlanResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -7,7 +8,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +23,15 @@ public class PlanClientService {
     @Value("${plan.service.url}")
     private String planServiceUrl;
 
+    @Value("${plan.snapshot.ttl-ms:60000}")
+    private long snapshotTtlMs;
+
+    // One entry per plan id; the plan catalogue is small, so no size bound
+    private final Map<UUID, PlanSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    private record PlanSnapshot(PlanResponse plan, long fetchedAt) {
+    }
+
     private WebClient getWebClient() {
         return webClientBuilder.baseUrl(planServiceUrl).build();
     }
@@ -49,6 +63,45 @@ public class PlanClientService {
         }
     }
 
+    /**
+     * Plan as last fetched, refetched once it is older than plan.snapshot.ttl-ms.
+     * Used where many calls need the same plan, e.g. initializing usage for new
+     * subscriptions. Returns null if the plan cannot be loaded.
+     */
+    public PlanResponse getPlanSnapshot(UUID planId) {
+        long now = System.currentTimeMillis();
+        PlanSnapshot snapshot = snapshots.get(planId);
+        if (snapshot != null && now - snapshot.fetchedAt() < snapshotTtlMs) {
+            return snapshot.plan();
+        }
+        PlanResponse plan = getPlan(planId);
+        if (plan != null) {
+            snapshots.put(planId, new PlanSnapshot(plan, now));
+        } else {
+            snapshots.remove(planId);
+        }
+        return plan;
+    }
+
+    /**
+     * Active plans ranked by plan-service for the given usage (units per featureId per
+     * month), cheapest first, with savings relative to currentPlanId.
+     */
+    public List<PlanRecommendationDto> getRecommendations(Map<UUID, Double> monthlyUsage, UUID currentPlanId, int limit) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("monthlyUsage", monthlyUsage);
+        request.put("currentPlanId", currentPlanId);
+        request.put("limit", limit);
+        List<PlanRecommendationDto> recommendations = getWebClient().post()
+                .uri("/api/v1/plans/recommendations")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToFlux(PlanRecommendationDto.class)
+                .collectList()
+                .block();
+        return recommendations != null ? recommendations : List.of();
+    }
+
     public String getPlanName(UUID planId) {
         PlanResponse p = getPlan(planId);
         return p != null ? p.getName() : null;
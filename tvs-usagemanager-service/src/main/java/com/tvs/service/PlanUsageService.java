@@ -1,5 +1,10 @@
 package com.tvs.service;
 
+import com.tvs.dto.ConsumeLineDto;
+import com.tvs.dto.ConsumeLineResultDto;
+import com.tvs.dto.FeatureResponse;
+import com.tvs.dto.PlanRecommendationDto;
+import com.tvs.dto.PlanResponse;
 import com.tvs.entity.FeatureUsageHistory;
 import com.tvs.entity.PlanUsage;
 import com.tvs.entity.UserSubscription;
@@ -7,14 +12,22 @@ import com.tvs.repository.FeatureUsageHistoryRepository;
 import com.tvs.repository.PlanUsageRepository;
 import com.tvs.repository.UserSubscriptionRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.ParameterizedTypeReference;
+import com.tvs.util.HistoryCursor;
+import com.tvs.util.UuidBytes;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Service to manage plan usage and feature consumption for user subscriptions.
@@ -26,64 +39,70 @@ public class PlanUsageService {
     private final PlanUsageRepository planUsageRepository;
     private final UserSubscriptionRepository subscriptionRepository;
     private final FeatureUsageHistoryRepository featureUsageHistoryRepository;
-    private final WebClient.Builder webClientBuilder;
+    private final PlanClientService planClientService;
+    private final UsageCounterEngine usageCounters;
+    private final FeatureUsageHistoryWriter historyWriter;
+    private final JdbcTemplate jdbcTemplate;
+    private final UsageAlertNotifier usageAlerts;
+    private final UsageStreamBroadcaster usageStream;
 
-    private static final String PLAN_SERVICE_URL = "http://localhost:8081/api/v1/plans/";
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+
+    private static final String EXPORT_FIRST_SQL = "SELECT id, feature_id, units_used, used_at FROM feature_usage_history " +
+            "WHERE subscription_id = ? AND feature_name = ? " +
+            "ORDER BY used_at DESC, id DESC LIMIT " + EXPORT_CHUNK_SIZE;
+
+    private static final String EXPORT_NEXT_SQL = "SELECT id, feature_id, units_used, used_at FROM feature_usage_history " +
+            "WHERE subscription_id = ? AND feature_name = ? AND (used_at < ? OR (used_at = ? AND id < ?)) " +
+            "ORDER BY used_at DESC, id DESC LIMIT " + EXPORT_CHUNK_SIZE;
 
     /**
-     * Initializes usage entries for all features in a plan.
+     * Initializes usage entries for all features in a plan. Idempotent: features that
+     * already have a row are left alone, and the missing ones are inserted with one
+     * batched saveAll. If a concurrent call inserts them first, the unique
+     * (subscription_id, feature_id) constraint rejects this batch as a whole and the
+     * rows the other call wrote are returned instead.
      */
     public List<PlanUsage> initializeUsage(UUID subscriptionId, UUID planId) {
-        Map<String, Object> plan;
-        try {
-            plan = webClientBuilder.build()
-                    .get()
-                    .uri(PLAN_SERVICE_URL + planId)
-                    .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                    .block();
-        } catch (WebClientResponseException e) {
-            throw new RuntimeException("Failed to fetch plan details: " + e.getMessage(), e);
-        }
-
+        PlanResponse plan = planClientService.getPlanSnapshot(planId);
         if (plan == null) {
             throw new RuntimeException("Plan not found: " + planId);
         }
-
-        Object featuresObj = plan.get("features");
-        if (!(featuresObj instanceof List<?> features)) {
+        if (plan.getFeatures() == null) {
             throw new RuntimeException("Invalid or missing features for plan: " + planId);
         }
 
-        List<PlanUsage> usageList = new ArrayList<>();
-        for (Object f : features) {
-            if (!(f instanceof Map<?, ?> feature)) continue;
-
-            String featureIdStr = Objects.toString(feature.get("featureId"), null);
-            String featureName = Objects.toString(feature.get("name"), "").trim();
+        List<PlanUsage> existing = planUsageRepository.findBySubscriptionId(subscriptionId);
+        Set<UUID> present = new HashSet<>();
+        existing.forEach(u -> present.add(u.getFeatureId()));
 
-            if (featureIdStr == null || featureName.isEmpty()) {
+        List<PlanUsage> missing = new ArrayList<>();
+        for (FeatureResponse feature : plan.getFeatures()) {
+            String featureName = Objects.toString(feature.getName(), "").trim();
+            if (feature.getFeatureId() == null || featureName.isEmpty()) {
                 throw new RuntimeException("Invalid feature data in plan response.");
             }
+            if (!present.add(feature.getFeatureId())) continue;
 
-            int defaultUnits = 0;
-            Object defaultUnitsObj = feature.get("defaultIncludedUnits");
-            if (defaultUnitsObj instanceof Number num) {
-                defaultUnits = num.intValue();
-            }
-
-            PlanUsage usage = PlanUsage.builder()
+            missing.add(PlanUsage.builder()
                     .subscriptionId(subscriptionId)
-                    .featureId(UUID.fromString(featureIdStr))
+                    .featureId(feature.getFeatureId())
                     .featureName(featureName)
-                    .totalUnits(defaultUnits)
+                    .totalUnits(feature.getDefaultIncludedUnits() != null ? feature.getDefaultIncludedUnits() : 0)
                     .usedUnits(0)
-                    .build();
-
-            usageList.add(planUsageRepository.save(usage));
+                    .allowOverage(Boolean.TRUE.equals(plan.getAllowOverage()))
+                    .build());
+        }
+        if (missing.isEmpty()) {
+            return existing;
         }
 
-        return usageList;
+        try {
+            planUsageRepository.saveAll(missing);
+        } catch (DataIntegrityViolationException e) {
+            // Lost the race to another initializer for this subscription
+        }
+        return planUsageRepository.findBySubscriptionId(subscriptionId);
     }
 
     /**
@@ -113,46 +132,180 @@ public class PlanUsageService {
         if (usageList.isEmpty()) {
             usageList = initializeUsage(subscriptionId, subscription.getPlanId());
         }
+        usageCounters.overlay(usageList); // the table may lag the live counters
 
         return usageList;
     }
 
     /**
-     * Consumes units for a feature, records the usage history, and ensures transactional consistency.
+     * Plans that would cost this subscription least at its observed usage. Usage so far is
+     * turned into a monthly rate per feature (over at least one month, so a new subscription
+     * is not extrapolated from a few days) and scored by plan-service.
+     */
+    public List<PlanRecommendationDto> getPlanRecommendations(UUID subscriptionId, int limit) {
+        UserSubscription subscription = subscriptionRepository.findById(subscriptionId)
+                .orElseThrow(() -> new RuntimeException("Subscription not found: " + subscriptionId));
+        long days = ChronoUnit.DAYS.between(subscription.getStartDate(), LocalDate.now()) + 1;
+        double months = Math.max(1.0, days / 30.0);
+
+        Map<UUID, Double> monthlyUsage = new HashMap<>();
+        for (PlanUsage usage : getUsage(subscriptionId)) {
+            monthlyUsage.merge(usage.getFeatureId(), usage.getUsedUnits() / months, Double::sum);
+        }
+        return planClientService.getRecommendations(monthlyUsage, subscription.getPlanId(), limit);
+    }
+
+    /**
+     * Consumes units for a feature and records the usage history. The quota check runs
+     * against the in-memory counter; plan_usage and the history table are written in
+     * batches in the background.
      */
-    @Transactional
     public boolean consumeUnits(UUID subscriptionId, String featureName, int unitsNeeded) {
         featureName = featureName.trim();
 
-        PlanUsage usage = planUsageRepository.findBySubscriptionIdAndFeatureNameIgnoreCase(subscriptionId, featureName);
-        if (usage == null) {
+        UsageCounterEngine.Counter counter = usageCounters.counter(subscriptionId, featureName);
+        if (counter == null) {
             throw new RuntimeException("Feature not found: " + featureName);
         }
 
-        if (usage.getUsedUnits() + unitsNeeded > usage.getTotalUnits()) {
+        int usedAfter = usageCounters.tryConsume(counter, unitsNeeded);
+        if (usedAfter < 0) {
             return false; // Insufficient units
         }
 
-        usage.setUsedUnits(usage.getUsedUnits() + unitsNeeded);
-        planUsageRepository.save(usage);
-
         FeatureUsageHistory history = FeatureUsageHistory.builder()
                 .subscriptionId(subscriptionId)
-                .featureId(usage.getFeatureId())
+                .featureId(counter.getFeatureId())
                 .featureName(featureName)
                 .unitsUsed(unitsNeeded)
                 .usedAt(LocalDateTime.now())
                 .build();
 
-        featureUsageHistoryRepository.save(history);
+        try {
+            historyWriter.submit(history);
+        } catch (RuntimeException e) {
+            usageCounters.release(counter, unitsNeeded); // backpressure: refuse rather than lose history
+            throw e;
+        }
+        usageAlerts.consumed(counter, usedAfter, unitsNeeded);
+        usageStream.publish(counter);
         return true;
     }
 
     /**
-     * Retrieves the usage history for a specific feature in a subscription.
+     * Consumes several features of one subscription all-or-nothing. Every line is checked
+     * against its live counter in order; if any line fails, the units already taken by
+     * earlier lines are released again, so either every line is applied or none is.
+     * Returns one result per line, in request order.
+     */
+    public List<ConsumeLineResultDto> consumeBatch(UUID subscriptionId, List<ConsumeLineDto> lines) {
+        List<UsageCounterEngine.Counter> counters = new ArrayList<>(lines.size());
+        List<ConsumeLineResultDto> results = new ArrayList<>(lines.size());
+        boolean resolved = true;
+        for (ConsumeLineDto line : lines) {
+            UsageCounterEngine.Counter counter = usageCounters.counter(subscriptionId, line.getFeatureName().trim());
+            counters.add(counter);
+            results.add(new ConsumeLineResultDto(line.getFeatureName(), line.getUnits(),
+                    counter == null ? ConsumeLineResultDto.Status.FEATURE_NOT_FOUND : ConsumeLineResultDto.Status.NOT_APPLIED, null));
+            resolved &= counter != null;
+        }
+        if (!resolved) {
+            return results;
+        }
+
+        int[] usedAfter = new int[lines.size()];
+        int applied = 0;
+        for (; applied < lines.size(); applied++) {
+            usedAfter[applied] = usageCounters.tryConsume(counters.get(applied), lines.get(applied).getUnits());
+            if (usedAfter[applied] < 0) {
+                results.get(applied).setStatus(ConsumeLineResultDto.Status.INSUFFICIENT_UNITS);
+                results.get(applied).setRemainingUnits(counters.get(applied).getTotalUnits() - counters.get(applied).getUsedUnits());
+                break;
+            }
+            results.get(applied).setRemainingUnits(Math.max(0, counters.get(applied).getTotalUnits() - usedAfter[applied]));
+        }
+        if (applied < lines.size()) {
+            releaseAll(counters, lines, applied);
+            for (int i = 0; i < applied; i++) results.get(i).setRemainingUnits(null);
+            return results;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<FeatureUsageHistory> history = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            history.add(FeatureUsageHistory.builder()
+                    .subscriptionId(subscriptionId)
+                    .featureId(counters.get(i).getFeatureId())
+                    .featureName(counters.get(i).getFeatureName())
+                    .unitsUsed(lines.get(i).getUnits())
+                    .usedAt(now)
+                    .build());
+        }
+        try {
+            // All rows or none are queued, so a refused batch leaves no history behind
+            historyWriter.submitAll(history);
+        } catch (RuntimeException e) {
+            releaseAll(counters, lines, lines.size());
+            throw e;
+        }
+
+        for (int i = 0; i < lines.size(); i++) {
+            results.get(i).setStatus(ConsumeLineResultDto.Status.CONSUMED);
+            usageAlerts.consumed(counters.get(i), usedAfter[i], lines.get(i).getUnits());
+            usageStream.publish(counters.get(i));
+        }
+        return results;
+    }
+
+    private void releaseAll(List<UsageCounterEngine.Counter> counters, List<ConsumeLineDto> lines, int count) {
+        for (int i = 0; i < count; i++) {
+            usageCounters.release(counters.get(i), lines.get(i).getUnits());
+        }
+    }
+
+    /**
+     * Retrieves the usage history for a specific feature in a subscription, newest first,
+     * one page after the given cursor (null for the first page).
+     * The feature name is matched by the column collation (case-insensitive on MySQL).
+     * For totals over a time range use {@link UsageRollupService#getBuckets} instead.
+     */
+    public Slice<FeatureUsageHistory> getFeatureHistoryPage(UUID subscriptionId, String featureName,
+                                                            HistoryCursor after, int size) {
+        Limit limit = Limit.of(size + 1); // one extra row tells whether another page exists
+        List<FeatureUsageHistory> rows = after == null
+                ? featureUsageHistoryRepository.findLatest(subscriptionId, featureName, limit)
+                : featureUsageHistoryRepository.findBefore(subscriptionId, featureName, after.usedAt(), after.id(), limit);
+
+        boolean hasNext = rows.size() > size;
+        List<FeatureUsageHistory> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.ofSize(size), hasNext);
+    }
+
+    /**
+     * Streams the full usage history of a feature to the sink, newest first. Rows are read
+     * in keyset chunks of 1000 with plain JDBC, so neither a result list nor a persistence
+     * context grows with the history size, and no connection is held between chunks.
      */
-    public List<FeatureUsageHistory> getFeatureHistory(UUID subscriptionId, String featureName) {
-        return featureUsageHistoryRepository
-                .findBySubscriptionIdAndFeatureNameIgnoreCaseOrderByUsedAtDesc(subscriptionId, featureName);
+    public void exportFeatureHistory(UUID subscriptionId, String featureName, Consumer<FeatureUsageHistory> sink) {
+        byte[] subscription = UuidBytes.toBytes(subscriptionId);
+        RowMapper<FeatureUsageHistory> mapper = (rs, n) -> FeatureUsageHistory.builder()
+                .id(UuidBytes.fromBytes(rs.getBytes("id")))
+                .subscriptionId(subscriptionId)
+                .featureId(UuidBytes.fromBytes(rs.getBytes("feature_id")))
+                .featureName(featureName)
+                .unitsUsed(rs.getInt("units_used"))
+                .usedAt(rs.getObject("used_at", LocalDateTime.class))
+                .build();
+
+        List<FeatureUsageHistory> chunk = jdbcTemplate.query(EXPORT_FIRST_SQL, mapper, subscription, featureName);
+        while (true) {
+            chunk.forEach(sink);
+            if (chunk.size() < EXPORT_CHUNK_SIZE) {
+                return;
+            }
+            FeatureUsageHistory tail = chunk.get(chunk.size() - 1);
+            chunk = jdbcTemplate.query(EXPORT_NEXT_SQL, mapper, subscription, featureName,
+                    tail.getUsedAt(), tail.getUsedAt(), UuidBytes.toBytes(tail.getId()));
+        }
     }
 }
@@ -0,0 +1,124 @@
+package com.tvs.service;
+
+import com.tvs.dto.UserDto;
+import com.tvs.entity.UserSubscription;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Sends "subscription renewed" emails off the renewal path. Each renewed chunk is
+ * queued as one task: a single batch user lookup, then the emails with at most
+ * email-concurrency requests in flight. The queue is bounded; when it is full the
+ * renewal loop runs the task itself, which slows renewal down instead of piling up
+ * memory. Emails still queued when the process dies are not sent.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RenewalNotifier {
+
+    private final WebClient webClient;
+    private final UserClientService userClientService;
+
+    @Value("${email-notification.url}")
+    private String emailNotificationUrl;
+
+    @Value("${subscription.renewal.notify-threads:2}")
+    private int threads;
+
+    @Value("${subscription.renewal.notify-queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${subscription.renewal.email-concurrency:16}")
+    private int emailConcurrency;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger n = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "renewal-notify-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /** Queues renewal emails for newly created subscriptions. */
+    public void renewed(List<UserSubscription> subscriptions) {
+        List<UserSubscription> copy = new ArrayList<>(subscriptions);
+        executor.execute(() -> {
+            try {
+                notifyUsers(copy);
+            } catch (Exception e) {
+                log.warn("Renewal emails for {} subscriptions not sent: {}", copy.size(), e.getMessage());
+            }
+        });
+    }
+
+    private void notifyUsers(List<UserSubscription> subscriptions) {
+        Set<UUID> userIds = subscriptions.stream()
+                .map(UserSubscription::getUserId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<UUID, UserDto> byId = userClientService.getUsers(userIds);
+
+        AtomicInteger failed = new AtomicInteger();
+        Flux.fromIterable(subscriptions)
+                .filter(sub -> byId.containsKey(sub.getUserId()) && byId.get(sub.getUserId()).getEmail() != null)
+                .flatMap(sub -> send(byId.get(sub.getUserId()), sub)
+                        .onErrorResume(e -> {
+                            failed.incrementAndGet();
+                            return Mono.empty();
+                        }), emailConcurrency)
+                .blockLast();
+        if (failed.get() > 0) {
+            log.warn("{} of {} renewal emails failed", failed.get(), subscriptions.size());
+        }
+    }
+
+    private Mono<String> send(UserDto user, UserSubscription sub) {
+        Map<String, String> emailRequest = Map.of(
+                "to", user.getEmail(),
+                "subject", "Your Subscription Has Been Renewed",
+                "body", "Dear " + user.getFullName() + ",\n\n" +
+                        "Your subscription has been renewed.\n" +
+                        "Plan ID: " + sub.getPlanId() +
+                        "\nStart Date: " + sub.getStartDate() +
+                        "\nEnd Date: " + sub.getEndDate() +
+                        "\n\nRegards,\nTVS Motor Team"
+        );
+        return webClient.post()
+                .uri(emailNotificationUrl)
+                .bodyValue(emailRequest)
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+}
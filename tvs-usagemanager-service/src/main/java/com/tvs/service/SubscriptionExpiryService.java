@@ -0,0 +1,91 @@
+package com.tvs.service;
+
+import com.tvs.repository.UserSubscriptionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Switches off subscriptions whose end date has passed, with set-based UPDATEs of at
+ * most chunk-size rows each (one short transaction per chunk) on the
+ * (is_active, end_date) index. Runs on its own timer every
+ * subscription.expiry.interval-ms, so reads never have to write.
+ *
+ * When auto-renewal is enabled it runs first on the same timer, so expiry only
+ * switches off what renewal has not already replaced.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SubscriptionExpiryService {
+
+    private final UserSubscriptionRepository repository;
+    private final SubscriptionRenewalService renewalService;
+
+    @Value("${subscription.renewal.enabled:true}")
+    private boolean renewalEnabled;
+
+    @Value("${subscription.expiry.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${subscription.expiry.interval-ms:3600000}")
+    private long intervalMs;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "subscription-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::renewAndExpire, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Each step catches its own failure, so a failed renewal pass does not also stop expiry
+    void renewAndExpire() {
+        if (renewalEnabled) {
+            try {
+                renewalService.renewExpiredSubscriptions();
+            } catch (Exception e) {
+                log.warn("Subscription renewal failed, will retry: {}", e.getMessage());
+            }
+        }
+        try {
+            deactivateExpiredSubscriptions();
+        } catch (Exception e) {
+            log.warn("Subscription expiry failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /** Returns the number of subscriptions deactivated. */
+    public int deactivateExpiredSubscriptions() {
+        long started = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        int total = 0;
+        int chunk;
+        do {
+            chunk = repository.deactivateExpired(today, LocalDateTime.now(), chunkSize);
+            total += chunk;
+        } while (chunk == chunkSize);
+
+        log.info("Subscription expiry: deactivated {} subscriptions ending before {} in {} ms",
+                total, today, (System.nanoTime() - started) / 1_000_000);
+        return total;
+    }
+}
@@ -0,0 +1,100 @@
+package com.tvs.service;
+
+import com.tvs.entity.SubscriptionRenewalCheckpoint;
+import com.tvs.entity.UserSubscription;
+import com.tvs.repository.SubscriptionRenewalCheckpointRepository;
+import com.tvs.repository.UserSubscriptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Renews every expired, still-active subscription for another 12 months.
+ *
+ * Expired subscriptions are read in keyset pages of chunk-size rows. For each page, the
+ * renewed rows are inserted with one batched saveAll, the old rows are deactivated with
+ * one UPDATE, and the day's checkpoint moves to the page's last id, all in one
+ * transaction. A run that dies midway resumes after the last committed page.
+ * User lookups and emails go to {@link RenewalNotifier} and never block the loop.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SubscriptionRenewalService {
+
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    private final UserSubscriptionRepository repository;
+    private final SubscriptionRenewalCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RenewalNotifier renewalNotifier;
+
+    @Value("${subscription.renewal.chunk-size:500}")
+    private int chunkSize;
+
+    /** Returns the number of subscriptions renewed by this call. */
+    public long renewExpiredSubscriptions() {
+        long started = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        SubscriptionRenewalCheckpoint checkpoint = checkpointRepository.findById(today)
+                .orElseGet(() -> SubscriptionRenewalCheckpoint.builder().runDate(today).renewed(0L).build());
+        if (checkpoint.getFinishedAt() != null) {
+            return 0;
+        }
+
+        long renewedNow = 0;
+        UUID after = checkpoint.getLastSubscriptionId() != null ? checkpoint.getLastSubscriptionId() : FIRST_ID;
+        while (true) {
+            List<UserSubscription> expired = repository.findExpiredAfter(today, after, Limit.of(chunkSize));
+            if (expired.isEmpty()) {
+                break;
+            }
+            List<UserSubscription> renewed = renewChunk(checkpoint, expired, today);
+            renewalNotifier.renewed(renewed);
+            renewedNow += renewed.size();
+            after = checkpoint.getLastSubscriptionId();
+            if (expired.size() < chunkSize) {
+                break;
+            }
+        }
+
+        checkpoint.setFinishedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+        log.info("Subscription renewal: renewed {} subscriptions ({} today) in {} ms",
+                renewedNow, checkpoint.getRenewed(), (System.nanoTime() - started) / 1_000_000);
+        return renewedNow;
+    }
+
+    private List<UserSubscription> renewChunk(SubscriptionRenewalCheckpoint checkpoint,
+                                              List<UserSubscription> expired, LocalDate today) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UserSubscription> renewed = expired.stream()
+                .map(sub -> UserSubscription.builder()
+                        .userId(sub.getUserId())
+                        .planId(sub.getPlanId())
+                        .startDate(today)
+                        .endDate(today.plusMonths(12))
+                        .isActive(true)
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build())
+                .toList();
+
+        return transactionTemplate.execute(status -> {
+            repository.deactivateAll(expired.stream().map(UserSubscription::getId).toList(), now);
+            List<UserSubscription> saved = repository.saveAll(renewed);
+            checkpoint.setLastSubscriptionId(expired.get(expired.size() - 1).getId());
+            checkpoint.setRenewed(checkpoint.getRenewed() + saved.size());
+            checkpointRepository.save(checkpoint);
+            return saved;
+        });
+    }
+}
@@ -1,23 +1,18 @@
 package com.tvs.service;
-import com.tvs.dto.UserDto;
 import com.tvs.entity.UserSubscription;
 import com.tvs.repository.UserSubscriptionRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 @Service
 @RequiredArgsConstructor
 public class SubscriptionService {
     private final UserSubscriptionRepository repository;
     private final PlanClientService planClientService;
-    private final WebClient webClient;
     // -----------------------------------------------------------------------
     // ASSIGN NORMAL SUBSCRIPTION
     // -----------------------------------------------------------------------
@@ -57,52 +52,6 @@ public class SubscriptionService {
                 });
     }
     // -----------------------------------------------------------------------
-    // AUTO RENEW EXPIRED SUBSCRIPTIONS DAILY
-    // -----------------------------------------------------------------------
-    @Scheduled(cron = "0 0 0 * * ?")
-    public void autoRenewSubscriptions() {
-        LocalDate today = LocalDate.now();
-        List<UserSubscription> expiredSubs = repository.findByEndDateBeforeAndIsActiveTrue(today);
-        for (UserSubscription sub : expiredSubs) {
-            sub.setIsActive(false);
-            sub.setUpdatedAt(LocalDateTime.now());
-            repository.save(sub);
-            UserSubscription renewed = UserSubscription.builder()
-                    .userId(sub.getUserId())
-                    .planId(sub.getPlanId())
-                    .startDate(today)
-                    .endDate(today.plusMonths(12))
-                    .isActive(true)
-                    .createdAt(LocalDateTime.now())
-                    .updatedAt(LocalDateTime.now())
-                    .build();
-            repository.save(renewed);
-            UserDto user = webClient.get()
-                    .uri("http://localhost:9003/api/users/{userId}", sub.getUserId())
-                    .retrieve()
-                    .bodyToMono(UserDto.class)
-                    .block();
-            if (user != null && user.getEmail() != null) {
-                Map<String, String> emailRequest = Map.of(
-                        "to", user.getEmail(),
-                        "subject", "Your Subscription Has Been Renewed",
-                        "body", "Dear " + user.getFullName() + ",\n\n" +
-                                "Your subscription has been renewed.\n" +
-                                "Plan ID: " + sub.getPlanId() +
-                                "\nStart Date: " + today +
-                                "\nEnd Date: " + today.plusMonths(12) +
-                                "\n\nRegards,\nTVS Motor Team"
-                );
-                webClient.post()
-                        .uri("http://localhost:9090/api/notifications/send-email")
-                        .bodyValue(emailRequest)
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .block();
-            }
-        }
-    }
-    // -----------------------------------------------------------------------
     // ASSIGN FREE SUBSCRIPTION
     // -----------------------------------------------------------------------
     @Transactional
@@ -131,18 +80,8 @@ public class SubscriptionService {
     // GET ACTIVE SUBSCRIPTIONS
     // -----------------------------------------------------------------------
     public List<UserSubscription> getActiveSubscriptions(UUID userId) {
-        LocalDate today = LocalDate.now();
-        // Mark expired subscriptions as inactive
-        List<UserSubscription> expiredSubs = repository.findByUserIdAndIsActiveTrue(userId)
-                .stream()
-                .filter(s -> s.getEndDate().isBefore(today))
-                .toList();
-        for (UserSubscription sub : expiredSubs) {
-            sub.setIsActive(false);
-            sub.setUpdatedAt(LocalDateTime.now());
-            repository.save(sub);
-        }
-        // Return still-active subscriptions (sorted by latest createdAt)
-        return repository.findByUserIdAndIsActiveTrueAndEndDateAfterOrderByCreatedAtDescUpdatedAtDesc(userId, today);
+        // Read-only: expired rows are switched off by SubscriptionExpiryService and are
+        // already excluded here by their end date
+        return repository.findByUserIdAndIsActiveTrueAndEndDateAfterOrderByCreatedAtDescUpdatedAtDesc(userId, LocalDate.now());
     }
 }
\ No newline at end of file
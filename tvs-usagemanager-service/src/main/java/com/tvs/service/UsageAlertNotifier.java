@@ -0,0 +1,235 @@
+package com.tvs.service;
+
+import com.tvs.dto.UserDto;
+import com.tvs.entity.UserSubscription;
+import com.tvs.repository.UserSubscriptionRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Emails users when a feature's usage crosses a quota threshold (usage.alert.thresholds,
+ * as percentages of totalUnits).
+ *
+ * Crossings are worked out from the counter value the consume already returned, so the
+ * consume path does no extra query and no I/O: it only adds the alert to a per-subscription
+ * pending entry. Every alert of a subscription raised within coalesce-window-ms of its
+ * first one goes out as one email, keeping only the highest threshold per feature.
+ * A background thread looks up the users in one batch and sends the emails. At most
+ * max-pending subscriptions wait at once; alerts beyond that, and alerts still pending
+ * when the process stops, are dropped.
+ *
+ * Exposed on /actuator/metrics as usage.alerts.*.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UsageAlertNotifier implements MeterBinder {
+
+    private final UserSubscriptionRepository subscriptionRepository;
+    private final UserClientService userClientService;
+    private final WebClient webClient;
+
+    @Value("${email-notification.url}")
+    private String emailNotificationUrl;
+
+    @Value("${usage.alert.thresholds:80,100}")
+    private int[] thresholds;
+
+    @Value("${usage.alert.coalesce-window-ms:60000}")
+    private long coalesceWindowMs;
+
+    @Value("${usage.alert.check-interval-ms:5000}")
+    private long checkIntervalMs;
+
+    @Value("${usage.alert.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${usage.alert.email-concurrency:8}")
+    private int emailConcurrency;
+
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder raised = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        thresholds = Arrays.stream(thresholds).distinct().sorted().toArray();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "usage-alert-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushDue, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /** Called after units were taken from a counter; usedAfter is the value tryConsume returned. */
+    public void consumed(UsageCounterEngine.Counter counter, int usedAfter, int units) {
+        consumed(counter.getSubscriptionId(), counter.getFeatureName(), counter.getTotalUnits(), usedAfter, units);
+    }
+
+    void consumed(UUID subscriptionId, String featureName, int totalUnits, int usedAfter, int units) {
+        if (totalUnits <= 0) {
+            return;
+        }
+        int usedBefore = usedAfter - units;
+        int crossed = -1;
+        for (int threshold : thresholds) {
+            // smallest used count at or above threshold% of the quota
+            long mark = ((long) totalUnits * threshold + 99) / 100;
+            if (usedBefore < mark && usedAfter >= mark) {
+                crossed = threshold;
+            }
+        }
+        if (crossed < 0) {
+            return;
+        }
+        if (pending.size() >= maxPending && !pending.containsKey(subscriptionId)) {
+            dropped.increment();
+            return;
+        }
+        Alert alert = new Alert(featureName, crossed, usedAfter, totalUnits);
+        pending.compute(subscriptionId, (id, p) -> {
+            Pending next = p != null ? p : new Pending(System.currentTimeMillis());
+            next.alerts.merge(featureName.toLowerCase(), alert, (a, b) -> b.threshold() >= a.threshold() ? b : a);
+            return next;
+        });
+        raised.increment();
+    }
+
+    /** Removes and returns the alerts of every subscription whose window has closed. */
+    Map<UUID, List<Alert>> takeDue(long nowMillis) {
+        Map<UUID, List<Alert>> due = new HashMap<>();
+        for (Map.Entry<UUID, Pending> entry : pending.entrySet()) {
+            if (nowMillis - entry.getValue().firstAt < coalesceWindowMs) {
+                continue;
+            }
+            Pending p = pending.remove(entry.getKey());
+            if (p != null) {
+                due.put(entry.getKey(), new ArrayList<>(p.alerts.values()));
+            }
+        }
+        return due;
+    }
+
+    private void flushDue() {
+        Map<UUID, List<Alert>> due = takeDue(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            send(due);
+        } catch (Exception e) {
+            failed.add(due.size());
+            log.warn("Usage alerts for {} subscriptions not sent: {}", due.size(), e.getMessage());
+        }
+    }
+
+    private void send(Map<UUID, List<Alert>> due) {
+        // One email per user, even if several of their subscriptions are due
+        Map<UUID, List<Alert>> byUser = new LinkedHashMap<>();
+        for (UserSubscription sub : subscriptionRepository.findAllById(due.keySet())) {
+            byUser.computeIfAbsent(sub.getUserId(), id -> new ArrayList<>()).addAll(due.get(sub.getId()));
+        }
+        Map<UUID, UserDto> users = userClientService.getUsers(new LinkedHashSet<>(byUser.keySet()));
+
+        Flux.fromIterable(byUser.entrySet())
+                .filter(e -> users.containsKey(e.getKey()) && users.get(e.getKey()).getEmail() != null)
+                .flatMap(e -> email(users.get(e.getKey()), e.getValue())
+                        .doOnSuccess(r -> sent.increment())
+                        .onErrorResume(ex -> {
+                            failed.increment();
+                            return Mono.empty();
+                        }), emailConcurrency)
+                .blockLast();
+    }
+
+    private Mono<String> email(UserDto user, List<Alert> alerts) {
+        StringBuilder body = new StringBuilder("Dear " + user.getFullName() + ",\n\n")
+                .append("Your plan usage has reached the following levels:\n");
+        for (Alert alert : alerts) {
+            body.append("- ").append(alert.featureName()).append(": ")
+                    .append(alert.usedUnits()).append(" of ").append(alert.totalUnits())
+                    .append(" units used (").append(alert.threshold()).append("%)\n");
+        }
+        body.append("\nRegards,\nTVS Motor Team");
+        Map<String, String> emailRequest = Map.of(
+                "to", user.getEmail(),
+                "subject", "Your Plan Usage Alert",
+                "body", body.toString()
+        );
+        return webClient.post()
+                .uri(emailNotificationUrl)
+                .bodyValue(emailRequest)
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("usage.alerts.raised", raised, LongAdder::sum)
+                .description("Threshold crossings queued for notification")
+                .register(registry);
+        FunctionCounter.builder("usage.alerts.dropped", dropped, LongAdder::sum)
+                .description("Threshold crossings dropped because too many subscriptions were pending")
+                .register(registry);
+        FunctionCounter.builder("usage.alerts.sent", sent, LongAdder::sum)
+                .description("Alert emails sent")
+                .register(registry);
+        FunctionCounter.builder("usage.alerts.failed", failed, LongAdder::sum)
+                .description("Alert emails that could not be sent")
+                .register(registry);
+        Gauge.builder("usage.alerts.pending", pending, Map::size)
+                .description("Subscriptions with alerts waiting for their window to close")
+                .register(registry);
+    }
+
+    record Alert(String featureName, int threshold, int usedUnits, int totalUnits) {
+    }
+
+    // Only mutated inside pending.compute, so never after it has been removed
+    private static final class Pending {
+
+        private final long firstAt;
+        private final Map<String, Alert> alerts = new LinkedHashMap<>();
+
+        private Pending(long firstAt) {
+            this.firstAt = firstAt;
+        }
+    }
+}
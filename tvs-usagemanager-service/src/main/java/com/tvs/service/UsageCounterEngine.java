@@ -0,0 +1,425 @@
+package com.tvs.service;
+
+import com.tvs.entity.PlanUsage;
+import com.tvs.entity.UsageJournalCheckpoint;
+import com.tvs.repository.PlanUsageRepository;
+import com.tvs.repository.UsageJournalCheckpointRepository;
+import com.tvs.util.UuidBytes;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-(subscription, feature) usage counters held in memory, so quota decisions
+ * are a compare-and-set instead of a database round trip.
+ *
+ * Durability:
+ * - every accepted change is appended to a local {@link UsageJournal} before the
+ *   caller is answered;
+ * - a background flusher writes the changed counters to plan_usage in one JDBC batch
+ *   and records the journal position it covers in usage_journal_checkpoint, in the
+ *   same transaction;
+ * - on startup, journal records past the checkpoint are added to plan_usage before
+ *   any counter is loaded, so each change lands in the database exactly once.
+ *
+ * Counters that are clean and untouched for usage.counters.idle-ms are dropped from
+ * memory and reloaded from plan_usage on next use.
+ *
+ * This instance must be the only writer of plan_usage.used_units, i.e. one
+ * usagemanager node (or requests partitioned by subscription).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UsageCounterEngine implements MeterBinder {
+
+    private final PlanUsageRepository planUsageRepository;
+    private final UsageJournalCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${usage.journal.dir:/var/lib/usagemanager/usage-journal}")
+    private String journalDir;
+
+    @Value("${usage.flush.interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${usage.counters.idle-ms:600000}")
+    private long idleMs;
+
+    @Value("${spring.application.name:usagemanager}")
+    private String nodeId;
+
+    private final Map<Key, Counter> counters = new ConcurrentHashMap<>();
+    private final Set<Counter> dirty = ConcurrentHashMap.newKeySet();
+
+    // Consumers share the read lock; the flusher takes the write lock only long enough
+    // to rotate the journal and copy the dirty counters, so the copy matches the
+    // rotated segment exactly
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private Timer flushTimer;
+
+    private UsageJournal journal;
+    private ScheduledExecutorService flusher;
+    private volatile long checkpointSeq;
+
+    @PostConstruct
+    public void start() throws IOException {
+        journal = new UsageJournal(Path.of(journalDir));
+        recover();
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "usage-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        long evictEvery = Math.max(flushIntervalMs, idleMs / 10);
+        flusher.scheduleWithFixedDelay(this::evictIdleQuietly, evictEvery, evictEvery, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        journal.close();
+    }
+
+    /**
+     * Live counter for a subscription's feature (name match is case-insensitive),
+     * loaded from plan_usage on first use; null if the subscription has no such feature.
+     */
+    public Counter counter(UUID subscriptionId, String featureName) {
+        Key key = new Key(subscriptionId, featureName.trim().toLowerCase(Locale.ROOT));
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.lastUsedMillis = System.currentTimeMillis();
+            return counter;
+        }
+        PlanUsage usage = planUsageRepository.findBySubscriptionIdAndFeatureNameIgnoreCase(subscriptionId, featureName.trim());
+        if (usage == null) {
+            return null;
+        }
+        Counter loaded = new Counter(usage.getId(), subscriptionId, usage.getFeatureId(),
+                usage.getFeatureName(), usage.getTotalUnits(), usage.getUsedUnits(),
+                Boolean.TRUE.equals(usage.getAllowOverage()));
+        Counter existing = counters.putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /**
+     * Consumes units if the quota allows it. Returns the used units after the
+     * change, or -1 if it would exceed totalUnits on a row that does not allow overage.
+     */
+    public int tryConsume(Counter counter, int units) {
+        snapshotLock.readLock().lock();
+        try {
+            counter = live(counter);
+            while (true) {
+                int current = counter.used.get();
+                int next = current + units;
+                if (next > counter.totalUnits && !counter.allowOverage) {
+                    return -1;
+                }
+                if (counter.used.compareAndSet(current, next)) {
+                    record(counter, units);
+                    return next;
+                }
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gives back units taken by {@link #tryConsume}, e.g. when a later step fails.
+     * Returns the counter the units went back to, which differs from the argument if
+     * that counter was evicted while the caller held it.
+     */
+    public Counter release(Counter counter, int units) {
+        snapshotLock.readLock().lock();
+        try {
+            counter = live(counter);
+            counter.used.addAndGet(-units);
+            record(counter, -units);
+            return counter;
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the read lock, so the evicted flag cannot change underneath. A counter
+    // is only evicted when clean, so a reload from plan_usage starts from the same value.
+    private Counter live(Counter counter) {
+        if (!counter.evicted) {
+            return counter;
+        }
+        Counter live = counter(counter.subscriptionId, counter.featureName);
+        return live != null ? live : counter;
+    }
+
+    /** Replaces usedUnits with the live value for rows whose counters are loaded. */
+    public void overlay(List<PlanUsage> usages) {
+        for (PlanUsage usage : usages) {
+            Counter counter = counters.get(new Key(usage.getSubscriptionId(),
+                    usage.getFeatureName().trim().toLowerCase(Locale.ROOT)));
+            if (counter != null) {
+                usage.setUsedUnits(counter.getUsedUnits());
+            }
+        }
+    }
+
+    // Caller holds the read lock. Journal first-then-dirty: a change is never
+    // flushed without being in a segment the checkpoint will cover.
+    private void record(Counter counter, int units) {
+        try {
+            journal.append(counter.usageId, units);
+        } catch (UncheckedIOException e) {
+            counter.used.addAndGet(-units);
+            throw e;
+        }
+        counter.lastUsedMillis = System.currentTimeMillis();
+        dirty.add(counter);
+    }
+
+    /**
+     * Writes changed counters to plan_usage and advances the checkpoint.
+     * On failure the counters stay dirty and their journal segments are kept.
+     */
+    public void flush() throws IOException {
+        long start = System.nanoTime();
+        List<Counter> changed;
+        List<Object[]> rows;
+        long seq;
+
+        snapshotLock.writeLock().lock();
+        try {
+            seq = journal.rotate();
+            changed = new ArrayList<>(dirty);
+            dirty.clear();
+            rows = new ArrayList<>(changed.size());
+            for (Counter counter : changed) {
+                rows.add(new Object[]{counter.used.get(), UuidBytes.toBytes(counter.usageId)});
+            }
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+
+        if (rows.isEmpty() && seq == checkpointSeq) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate("UPDATE plan_usage SET used_units = ? WHERE id = ?", rows);
+                }
+                saveCheckpoint(seq);
+            });
+        } catch (RuntimeException e) {
+            dirty.addAll(changed);
+            flushFailures.increment();
+            throw e;
+        }
+        checkpointSeq = seq;
+        journal.deleteThrough(seq);
+        if (flushTimer != null) {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Drops counters that have no unflushed changes and were not used for idleMs,
+     * so the map holds only recently active subscriptions.
+     */
+    public int evictIdle() {
+        long idleBefore = System.currentTimeMillis() - idleMs;
+        List<Map.Entry<Key, Counter>> candidates = new ArrayList<>();
+        for (Map.Entry<Key, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            if (counter.lastUsedMillis <= idleBefore && !dirty.contains(counter)) {
+                candidates.add(entry);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        int evicted = 0;
+        snapshotLock.writeLock().lock();
+        try {
+            // Re-check under the lock: a consume may have touched the counter since
+            for (Map.Entry<Key, Counter> entry : candidates) {
+                Counter counter = entry.getValue();
+                if (counter.lastUsedMillis <= idleBefore && !dirty.contains(counter)
+                        && counters.remove(entry.getKey(), counter)) {
+                    counter.evicted = true;
+                    evicted++;
+                }
+            }
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        evictions.add(evicted);
+        return evicted;
+    }
+
+    private void evictIdleQuietly() {
+        try {
+            evictIdle();
+        } catch (Exception e) {
+            log.warn("Usage counter eviction failed: {}", e.getMessage());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Usage flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    // Adds journal records past the checkpoint to plan_usage, then starts a new journal
+    private void recover() throws IOException {
+        long checkpoint = checkpointRepository.findById(nodeId)
+                .map(UsageJournalCheckpoint::getLastSeq)
+                .orElse(0L);
+        UsageJournal.Replay replay = journal.replay(checkpoint);
+
+        if (replay.records() > 0) {
+            List<Object[]> rows = new ArrayList<>(replay.deltas().size());
+            replay.deltas().forEach((usageId, delta) -> rows.add(new Object[]{delta, UuidBytes.toBytes(usageId)}));
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate("UPDATE plan_usage SET used_units = used_units + ? WHERE id = ?", rows);
+                saveCheckpoint(replay.lastSeq());
+            });
+            log.info("Replayed {} unflushed usage changes (journal seq {} to {})",
+                    replay.records(), checkpoint + 1, replay.lastSeq());
+        }
+        UsageJournal.deleteAll(replay.files());
+        checkpointSeq = replay.lastSeq();
+        journal.start(replay.lastSeq());
+    }
+
+    private void saveCheckpoint(long seq) {
+        checkpointRepository.save(UsageJournalCheckpoint.builder()
+                .nodeId(nodeId)
+                .lastSeq(seq)
+                .build());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        flushTimer = Timer.builder("usage.counters.flush")
+                .description("Write-behind flush of usage counters to plan_usage")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        FunctionCounter.builder("usage.counters.flush.failures", flushFailures, LongAdder::sum)
+                .description("Flushes rolled back and retried")
+                .register(registry);
+        Gauge.builder("usage.counters.loaded", counters, Map::size)
+                .description("Usage counters held in memory")
+                .register(registry);
+        FunctionCounter.builder("usage.counters.evictions", evictions, LongAdder::sum)
+                .description("Idle counters dropped from memory")
+                .register(registry);
+        Gauge.builder("usage.counters.dirty", dirty, Set::size)
+                .description("Counters changed since the last flush")
+                .register(registry);
+        Gauge.builder("usage.journal.lag", this, e -> e.journal.lastSeq() - e.checkpointSeq)
+                .description("Journal records not yet covered by a flush checkpoint")
+                .register(registry);
+    }
+
+    private record Key(UUID subscriptionId, String featureName) {
+    }
+
+    /**
+     * In-memory view of one plan_usage row.
+     */
+    public static final class Counter {
+
+        private final UUID usageId;
+        private final UUID subscriptionId;
+        private final UUID featureId;
+        private final String featureName;
+        private final int totalUnits;
+        private final boolean allowOverage;
+        private final AtomicInteger used;
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+        private volatile boolean evicted;
+
+        private Counter(UUID usageId, UUID subscriptionId, UUID featureId, String featureName,
+                        int totalUnits, int usedUnits, boolean allowOverage) {
+            this.usageId = usageId;
+            this.subscriptionId = subscriptionId;
+            this.featureId = featureId;
+            this.featureName = featureName;
+            this.totalUnits = totalUnits;
+            this.allowOverage = allowOverage;
+            this.used = new AtomicInteger(usedUnits);
+        }
+
+        public UUID getUsageId() {
+            return usageId;
+        }
+
+        public UUID getSubscriptionId() {
+            return subscriptionId;
+        }
+
+        public UUID getFeatureId() {
+            return featureId;
+        }
+
+        public String getFeatureName() {
+            return featureName;
+        }
+
+        public int getTotalUnits() {
+            return totalUnits;
+        }
+
+        public boolean isAllowOverage() {
+            return allowOverage;
+        }
+
+        public int getUsedUnits() {
+            return used.get();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.tvs.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of usage counter changes that may not have reached plan_usage yet.
+ *
+ * Each record is (seq, usageId, units) and is written straight to the file channel,
+ * so it survives a process crash; segments are forced to disk when they are rotated
+ * at each flush. Segments are deleted once a flush checkpoint covers them. A torn
+ * record at the end of a segment (crash mid-write) is ignored on replay.
+ */
+class UsageJournal implements Closeable {
+
+    static final int RECORD_SIZE = Long.BYTES + 16 + Integer.BYTES;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final Deque<Segment> closed = new ArrayDeque<>();
+
+    private FileChannel channel;
+    private long currentFirstSeq;
+    private long lastSeq;
+
+    UsageJournal(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Sums the changes recorded after {@code afterSeq}, per usage row, across all
+     * segments left on disk by a previous run.
+     */
+    Replay replay(long afterSeq) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(p -> p.getFileName().toString().startsWith(PREFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        Map<UUID, Long> deltas = new HashMap<>();
+        long maxSeq = afterSeq;
+        int records = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        for (Path file : files) {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (true) {
+                    buffer.clear();
+                    while (buffer.hasRemaining() && in.read(buffer) > 0) {
+                        // keep reading until the record is complete or the file ends
+                    }
+                    if (buffer.hasRemaining()) break; // end of segment or torn record
+                    buffer.flip();
+                    long seq = buffer.getLong();
+                    UUID usageId = new UUID(buffer.getLong(), buffer.getLong());
+                    int units = buffer.getInt();
+                    if (seq > afterSeq) {
+                        deltas.merge(usageId, (long) units, Long::sum);
+                        maxSeq = Math.max(maxSeq, seq);
+                        records++;
+                    }
+                }
+            }
+        }
+        return new Replay(deltas, maxSeq, files, records);
+    }
+
+    /** Opens a fresh segment; sequence numbers continue after {@code lastSeq}. */
+    synchronized void start(long lastSeq) throws IOException {
+        Files.createDirectories(dir);
+        this.lastSeq = lastSeq;
+        openSegment();
+    }
+
+    /** Returns the sequence number assigned to the record. */
+    synchronized long append(UUID usageId, int units) {
+        long seq = lastSeq + 1;
+        record.clear();
+        record.putLong(seq)
+                .putLong(usageId.getMostSignificantBits())
+                .putLong(usageId.getLeastSignificantBits())
+                .putInt(units)
+                .flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Usage journal write failed", e);
+        }
+        lastSeq = seq;
+        return seq;
+    }
+
+    /**
+     * Forces and closes the current segment and starts a new one.
+     * Returns the last sequence number in the closed segment.
+     */
+    synchronized long rotate() throws IOException {
+        if (lastSeq < currentFirstSeq) {
+            return lastSeq; // nothing written since the last rotation
+        }
+        channel.force(false);
+        channel.close();
+        closed.addLast(new Segment(segmentPath(currentFirstSeq), lastSeq));
+        openSegment();
+        return lastSeq;
+    }
+
+    /** Deletes closed segments whose records are all at or below {@code seq}. */
+    synchronized void deleteThrough(long seq) throws IOException {
+        while (!closed.isEmpty() && closed.peekFirst().lastSeq() <= seq) {
+            Files.deleteIfExists(closed.pollFirst().path());
+        }
+    }
+
+    synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    static void deleteAll(List<Path> files) throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        currentFirstSeq = lastSeq + 1;
+        channel = FileChannel.open(segmentPath(currentFirstSeq),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private Path segmentPath(long firstSeq) {
+        return dir.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+    }
+
+    record Replay(Map<UUID, Long> deltas, long lastSeq, List<Path> files, int records) {
+        Replay {
+            files = new ArrayList<>(files);
+        }
+    }
+
+    private record Segment(Path path, long lastSeq) {
+    }
+}
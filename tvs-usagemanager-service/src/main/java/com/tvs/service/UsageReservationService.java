@@ -0,0 +1,279 @@
+package com.tvs.service;
+
+import com.tvs.entity.FeatureUsageHistory;
+import com.tvs.entity.UsageReservation;
+import com.tvs.repository.UsageReservationRepository;
+import com.tvs.util.TimeOrderedUuid;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-phase consumption: reserve units now, then commit or release them later.
+ *
+ * A hold takes its units from the live counter straight away, so it counts against
+ * availability exactly like a consume. Commit keeps the units and records the usage
+ * history; release, or the hold's TTL running out, gives them back.
+ *
+ * Open holds sit in a map and a {@link DelayQueue} ordered by expiry. A single sweeper
+ * thread blocks on the queue and wakes only when the earliest hold expires, so expiry
+ * costs nothing per idle hold and never scans a table. Whichever of commit, release
+ * or the sweeper removes a hold from the map first decides its outcome; holds ended
+ * early are left in the queue (removing them would be a linear scan) and skipped
+ * by the sweeper when their time comes.
+ *
+ * The usage_reservation row is what lets open holds survive a restart: they are
+ * reloaded on startup and expire normally.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UsageReservationService implements MeterBinder {
+
+    private final UsageReservationRepository reservationRepository;
+    private final UsageCounterEngine usageCounters;
+    private final FeatureUsageHistoryWriter historyWriter;
+    private final UsageAlertNotifier usageAlerts;
+    private final UsageStreamBroadcaster usageStream;
+
+    @Value("${usage.reservation.default-ttl-ms:300000}")
+    private long defaultTtlMs;
+
+    @Value("${usage.reservation.max-ttl-ms:1800000}")
+    private long maxTtlMs;
+
+    private final Map<UUID, Hold> holds = new ConcurrentHashMap<>();
+    private final DelayQueue<Hold> expiries = new DelayQueue<>();
+
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    private Thread sweeper;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        for (UsageReservation reservation : reservationRepository.findAll()) {
+            UsageCounterEngine.Counter counter = usageCounters.counter(
+                    reservation.getSubscriptionId(), reservation.getFeatureName());
+            if (counter == null) {
+                reservationRepository.delete(reservation); // the usage row is gone
+                continue;
+            }
+            track(new Hold(reservation, counter));
+        }
+        if (!holds.isEmpty()) {
+            log.info("Restored {} open usage reservations", holds.size());
+        }
+
+        running = true;
+        sweeper = new Thread(this::sweepLoop, "usage-reservation-sweeper");
+        sweeper.setDaemon(true);
+        sweeper.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        sweeper.interrupt();
+        sweeper.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Holds units of a feature for ttlMs (default when null, capped at the maximum).
+     * Returns null if the feature does not have enough units left.
+     */
+    public UsageReservation reserve(UUID subscriptionId, String featureName, int units, Long ttlMs) {
+        UsageCounterEngine.Counter counter = usageCounters.counter(subscriptionId, featureName.trim());
+        if (counter == null) {
+            throw new RuntimeException("Feature not found: " + featureName);
+        }
+        int usedAfter = usageCounters.tryConsume(counter, units);
+        if (usedAfter < 0) {
+            return null; // Insufficient units
+        }
+
+        long ttl = Math.min(ttlMs == null ? defaultTtlMs : ttlMs, maxTtlMs);
+        LocalDateTime now = LocalDateTime.now();
+        UsageReservation reservation = UsageReservation.builder()
+                .id(TimeOrderedUuid.next())
+                .subscriptionId(subscriptionId)
+                .featureName(counter.getFeatureName())
+                .units(units)
+                .createdAt(now)
+                .expiresAt(now.plus(Duration.ofMillis(ttl)))
+                .build();
+        try {
+            reservationRepository.save(reservation);
+        } catch (RuntimeException e) {
+            usageCounters.release(counter, units);
+            throw e;
+        }
+        track(new Hold(reservation, counter));
+        usageAlerts.consumed(counter, usedAfter, units); // held units already count against the quota
+        usageStream.publish(counter);
+        return reservation;
+    }
+
+    /** Open reservation by id; throws NoSuchElementException once it has ended. */
+    public UsageReservation getReservation(UUID reservationId) {
+        Hold hold = holds.get(reservationId);
+        if (hold == null) {
+            throw new NoSuchElementException("Reservation not found or already ended: " + reservationId);
+        }
+        return hold.reservation;
+    }
+
+    /** Turns the hold into a consume: the units stay used and a history row is recorded. */
+    public UsageReservation commit(UUID reservationId) {
+        Hold hold = take(reservationId);
+        UsageReservation reservation = hold.reservation;
+        try {
+            historyWriter.submit(FeatureUsageHistory.builder()
+                    .subscriptionId(reservation.getSubscriptionId())
+                    .featureId(hold.counter.getFeatureId())
+                    .featureName(reservation.getFeatureName())
+                    .unitsUsed(reservation.getUnits())
+                    .usedAt(LocalDateTime.now())
+                    .build());
+        } catch (RuntimeException e) {
+            track(hold); // still open, the caller may retry the commit
+            throw e;
+        }
+        try {
+            deleteRow(reservation);
+        } catch (RuntimeException e) {
+            // Units and history are already in place; a leftover row would be
+            // released again after a restart, so make it visible
+            log.error("Committed reservation {} but could not delete its row: {}", reservationId, e.getMessage());
+        }
+        committed.increment();
+        return reservation;
+    }
+
+    /** Gives the held units back. */
+    public UsageReservation release(UUID reservationId) {
+        Hold hold = take(reservationId);
+        try {
+            end(hold);
+        } catch (RuntimeException e) {
+            track(hold);
+            throw e;
+        }
+        released.increment();
+        return hold.reservation;
+    }
+
+    private Hold take(UUID reservationId) {
+        Hold hold = holds.remove(reservationId);
+        if (hold == null) {
+            throw new NoSuchElementException("Reservation not found or already ended: " + reservationId);
+        }
+        return hold;
+    }
+
+    // A hold may be queued more than once after a failed commit or release; only the
+    // pop that still finds it in the map ends it
+    private void track(Hold hold) {
+        holds.put(hold.reservation.getId(), hold);
+        expiries.add(hold);
+    }
+
+    // Row first: if the delete fails the hold stays open and is retried by the next sweep
+    // or restart, rather than releasing units that a reload would release a second time
+    private void end(Hold hold) {
+        deleteRow(hold.reservation);
+        usageStream.publish(usageCounters.release(hold.counter, hold.reservation.getUnits()));
+    }
+
+    private void deleteRow(UsageReservation reservation) {
+        reservationRepository.deleteById(reservation.getId());
+    }
+
+    private void sweepLoop() {
+        while (running) {
+            Hold hold;
+            try {
+                hold = expiries.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!holds.remove(hold.reservation.getId(), hold)) {
+                continue; // committed or released meanwhile
+            }
+            try {
+                end(hold);
+                expired.increment();
+            } catch (RuntimeException e) {
+                log.warn("Could not expire reservation {}, will retry: {}", hold.reservation.getId(), e.getMessage());
+                track(new Hold(hold.reservation, hold.counter, System.nanoTime() + TimeUnit.SECONDS.toNanos(5)));
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("usage.reservation.ended", committed, LongAdder::sum)
+                .tag("outcome", "committed")
+                .description("Reservations that ended")
+                .register(registry);
+        FunctionCounter.builder("usage.reservation.ended", released, LongAdder::sum)
+                .tag("outcome", "released")
+                .description("Reservations that ended")
+                .register(registry);
+        FunctionCounter.builder("usage.reservation.ended", expired, LongAdder::sum)
+                .tag("outcome", "expired")
+                .description("Reservations that ended")
+                .register(registry);
+        Gauge.builder("usage.reservation.open", holds, Map::size)
+                .description("Reservations currently holding units")
+                .register(registry);
+    }
+
+    private static final class Hold implements Delayed {
+
+        private final UsageReservation reservation;
+        private final UsageCounterEngine.Counter counter;
+        private final long deadlineNanos;
+
+        private Hold(UsageReservation reservation, UsageCounterEngine.Counter counter) {
+            this(reservation, counter, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                    Math.max(0, Duration.between(LocalDateTime.now(), reservation.getExpiresAt()).toMillis())));
+        }
+
+        private Hold(UsageReservation reservation, UsageCounterEngine.Counter counter, long deadlineNanos) {
+            this.reservation = reservation;
+            this.counter = counter;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadlineNanos, ((Hold) other).deadlineNanos);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.tvs.service;
+
+import com.tvs.dto.UsageBucketDto;
+import com.tvs.repository.FeatureUsageDailyRepository;
+import com.tvs.repository.FeatureUsageHourlyRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps feature_usage_hourly and feature_usage_daily up to date from
+ * feature_usage_history and serves usage totals per bucket.
+ *
+ * Each run aggregates the history rows with usedAt in (watermark, now - lag] with
+ * INSERT ... SELECT ... ON DUPLICATE KEY UPDATE and moves the watermark, all in one
+ * transaction, so every row is counted exactly once. The watermark row is locked
+ * for the duration, so concurrent runs (or nodes) simply take turns. The lag covers
+ * history rows still waiting in the batch writer when their usedAt passes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UsageRollupService {
+
+    public enum Granularity { HOUR, DAY }
+
+    private static final String WATERMARK = "feature_usage";
+
+    private static final String HOURLY_SQL =
+            "INSERT INTO feature_usage_hourly (subscription_id, feature_name, bucket_start, units_used, events) " +
+            "SELECT * FROM (" +
+            "  SELECT subscription_id, LOWER(feature_name) AS fname, " +
+            "         CAST(DATE_FORMAT(used_at, '%Y-%m-%d %H:00:00') AS DATETIME) AS bucket, " +
+            "         SUM(units_used) AS units, COUNT(*) AS cnt " +
+            "  FROM feature_usage_history WHERE used_at > ? AND used_at <= ? " +
+            "  GROUP BY subscription_id, fname, bucket" +
+            ") AS agg " +
+            "ON DUPLICATE KEY UPDATE units_used = units_used + agg.units, events = events + agg.cnt";
+
+    private static final String DAILY_SQL =
+            "INSERT INTO feature_usage_daily (subscription_id, feature_name, bucket_start, units_used, events) " +
+            "SELECT * FROM (" +
+            "  SELECT subscription_id, LOWER(feature_name) AS fname, " +
+            "         CAST(DATE(used_at) AS DATETIME) AS bucket, " +
+            "         SUM(units_used) AS units, COUNT(*) AS cnt " +
+            "  FROM feature_usage_history WHERE used_at > ? AND used_at <= ? " +
+            "  GROUP BY subscription_id, fname, bucket" +
+            ") AS agg " +
+            "ON DUPLICATE KEY UPDATE units_used = units_used + agg.units, events = events + agg.cnt";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FeatureUsageHourlyRepository hourlyRepository;
+    private final FeatureUsageDailyRepository dailyRepository;
+
+    @Value("${usage.rollup.interval-ms:60000}")
+    private long intervalMs;
+
+    @Value("${usage.rollup.lag-ms:60000}")
+    private long lagMs;
+
+    @Value("${usage.rollup.max-window-hours:24}")
+    private long maxWindowHours;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "usage-rollup");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                rollUp();
+            } catch (Exception e) {
+                log.warn("Usage rollup failed, will retry: {}", e.getMessage());
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Rolls history up to now - lag, at most max-window-hours per transaction so a
+     * large backlog (e.g. the first run) does not become one huge transaction.
+     */
+    public void rollUp() {
+        LocalDateTime upper = LocalDateTime.now().minus(Duration.ofMillis(lagMs));
+        while (true) {
+            Boolean more = transactionTemplate.execute(status -> {
+                LocalDateTime from = lockWatermark(upper);
+                if (!from.isBefore(upper)) {
+                    return false;
+                }
+                LocalDateTime to = from.plusHours(maxWindowHours);
+                if (to.isAfter(upper)) to = upper;
+
+                int hourly = jdbcTemplate.update(HOURLY_SQL, from, to);
+                jdbcTemplate.update(DAILY_SQL, from, to);
+                jdbcTemplate.update("UPDATE usage_rollup_watermark SET rolled_up_to = ? WHERE name = ?", to, WATERMARK);
+                if (hourly > 0) {
+                    log.debug("Rolled up usage history ({}, {}]", from, to);
+                }
+                return to.isBefore(upper);
+            });
+            if (!Boolean.TRUE.equals(more)) {
+                return;
+            }
+        }
+    }
+
+    /** Rows with usedAt up to this time are included in the buckets. */
+    public LocalDateTime getRolledUpTo() {
+        List<LocalDateTime> marks = jdbcTemplate.queryForList(
+                "SELECT rolled_up_to FROM usage_rollup_watermark WHERE name = ?", LocalDateTime.class, WATERMARK);
+        return marks.isEmpty() ? null : marks.get(0);
+    }
+
+    /**
+     * Usage totals per hour or day for [from, to], oldest first. Only non-empty buckets
+     * are returned. Hourly ranges are limited to 31 days and daily ranges to 366 days.
+     */
+    public List<UsageBucketDto> getBuckets(UUID subscriptionId, String featureName, Granularity granularity,
+                                           LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        String name = featureName.trim().toLowerCase(Locale.ROOT);
+        if (granularity == Granularity.HOUR) {
+            if (ChronoUnit.DAYS.between(from, to) > 31) {
+                throw new IllegalArgumentException("Hourly range is limited to 31 days");
+            }
+            return hourlyRepository.findByIdSubscriptionIdAndIdFeatureNameAndIdBucketStartBetweenOrderByIdBucketStart(
+                            subscriptionId, name, from.truncatedTo(ChronoUnit.HOURS), to)
+                    .stream()
+                    .map(b -> new UsageBucketDto(b.getId().getBucketStart(), b.getUnitsUsed(), b.getEvents()))
+                    .toList();
+        }
+        if (ChronoUnit.DAYS.between(from, to) > 366) {
+            throw new IllegalArgumentException("Daily range is limited to 366 days");
+        }
+        return dailyRepository.findByIdSubscriptionIdAndIdFeatureNameAndIdBucketStartBetweenOrderByIdBucketStart(
+                        subscriptionId, name, from.truncatedTo(ChronoUnit.DAYS), to)
+                .stream()
+                .map(b -> new UsageBucketDto(b.getId().getBucketStart(), b.getUnitsUsed(), b.getEvents()))
+                .toList();
+    }
+
+    // Locks the watermark row for this transaction, creating it on the first run just
+    // below the oldest history row (or at upper when there is no history yet)
+    private LocalDateTime lockWatermark(LocalDateTime upper) {
+        List<LocalDateTime> marks = jdbcTemplate.queryForList(
+                "SELECT rolled_up_to FROM usage_rollup_watermark WHERE name = ? FOR UPDATE", LocalDateTime.class, WATERMARK);
+        if (!marks.isEmpty()) {
+            return marks.get(0);
+        }
+        LocalDateTime oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(used_at) FROM feature_usage_history", LocalDateTime.class);
+        LocalDateTime initial = oldest != null ? oldest.minusNanos(1000) : upper;
+        jdbcTemplate.update("INSERT IGNORE INTO usage_rollup_watermark (name, rolled_up_to) VALUES (?, ?)", WATERMARK, initial);
+        return jdbcTemplate.queryForObject(
+                "SELECT rolled_up_to FROM usage_rollup_watermark WHERE name = ? FOR UPDATE", LocalDateTime.class, WATERMARK);
+    }
+}
@@ -0,0 +1,248 @@
+package com.tvs.service;
+
+import com.tvs.entity.PlanUsage;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Pushes live PlanUsage values to Server-Sent Events subscribers of a subscription.
+ *
+ * Consume paths call {@link #publish} after a counter changes; with no subscriber for
+ * the subscription that is a single map lookup. Each subscriber keeps only the latest
+ * value per feature until it is sent, so a slow client skips stale values instead of
+ * building a backlog. Sends run on a small sender pool, one drain at a time per
+ * subscriber. At most max-subscribers streams are open in total (max-per-subscription
+ * for one subscription); a heartbeat comment finds dead connections.
+ *
+ * Exposed on /actuator/metrics as usage.stream.*.
+ */
+@Slf4j
+@Component
+public class UsageStreamBroadcaster implements MeterBinder {
+
+    @Value("${usage.stream.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${usage.stream.max-per-subscription:5}")
+    private int maxPerSubscription;
+
+    @Value("${usage.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${usage.stream.heartbeat-ms:30000}")
+    private long heartbeatMs;
+
+    @Value("${usage.stream.sender-threads:2}")
+    private int senderThreads;
+
+    private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private ExecutorService sender;
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger n = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "usage-stream-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "usage-stream-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeatAll, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        heartbeat.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(s -> s.emitter.complete()));
+        sender.shutdown();
+        sender.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Opens a stream for a subscription. The current usage is sent first, followed by
+     * every later change. Throws IllegalStateException when too many streams are open.
+     */
+    public SseEmitter subscribe(UUID subscriptionId, Supplier<List<PlanUsage>> snapshot) {
+        if (open.incrementAndGet() > maxSubscribers) {
+            open.decrementAndGet();
+            rejected.increment();
+            throw new IllegalStateException("Too many usage streams open");
+        }
+        Subscriber subscriber = new Subscriber(subscriptionId, new SseEmitter(timeoutMs));
+        AtomicBoolean added = new AtomicBoolean();
+        subscribers.compute(subscriptionId, (id, set) -> {
+            Set<Subscriber> next = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (next.size() < maxPerSubscription) {
+                added.set(next.add(subscriber));
+            }
+            return next.isEmpty() ? null : next;
+        });
+        if (!added.get()) {
+            open.decrementAndGet();
+            rejected.increment();
+            throw new IllegalStateException("Too many usage streams open for this subscription");
+        }
+
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+
+        // Registered before the snapshot is read, so a change racing with it is never lost;
+        // a delta already queued is at least as new as the snapshot row it would replace
+        List<PlanUsage> current;
+        try {
+            current = snapshot.get();
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        current.forEach(u -> subscriber.pending.putIfAbsent(u.getFeatureId(), u));
+        schedule(subscriber);
+        return subscriber.emitter;
+    }
+
+    /** Called after a counter changed; queues its current value for the subscription's streams. */
+    public void publish(UsageCounterEngine.Counter counter) {
+        Set<Subscriber> set = subscribers.get(counter.getSubscriptionId());
+        if (set == null) {
+            return;
+        }
+        PlanUsage usage = PlanUsage.builder()
+                .id(counter.getUsageId())
+                .subscriptionId(counter.getSubscriptionId())
+                .featureId(counter.getFeatureId())
+                .featureName(counter.getFeatureName())
+                .totalUnits(counter.getTotalUnits())
+                .usedUnits(counter.getUsedUnits())
+                .build();
+        for (Subscriber subscriber : set) {
+            if (subscriber.pending.put(usage.getFeatureId(), usage) != null) {
+                coalesced.increment();
+            }
+            schedule(subscriber);
+        }
+    }
+
+    private void heartbeatAll() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                subscriber.heartbeat = true;
+                schedule(subscriber);
+            }
+        }
+    }
+
+    // At most one drain per subscriber runs at a time, so values for a feature go out in order
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.wip.getAndIncrement() == 0) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                remove(subscriber); // shutting down
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        int missed = 1;
+        while (true) {
+            try {
+                if (subscriber.heartbeat) {
+                    subscriber.heartbeat = false;
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+                for (UUID featureId : subscriber.pending.keySet()) {
+                    PlanUsage usage = subscriber.pending.remove(featureId);
+                    if (usage != null) {
+                        subscriber.emitter.send(SseEmitter.event().name("usage").data(usage, MediaType.APPLICATION_JSON));
+                        sent.increment();
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("Usage stream for subscription {} closed: {}", subscriber.subscriptionId, e.getMessage());
+                remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+                return;
+            }
+            missed = subscriber.wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        AtomicBoolean removed = new AtomicBoolean();
+        subscribers.computeIfPresent(subscriber.subscriptionId, (id, set) -> {
+            removed.set(set.remove(subscriber));
+            return set.isEmpty() ? null : set;
+        });
+        if (removed.get()) {
+            open.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("usage.stream.open", open, AtomicInteger::get)
+                .description("Open usage streams")
+                .register(registry);
+        FunctionCounter.builder("usage.stream.sent", sent, LongAdder::sum)
+                .description("Usage events sent to streams")
+                .register(registry);
+        FunctionCounter.builder("usage.stream.coalesced", coalesced, LongAdder::sum)
+                .description("Usage events replaced by a newer value before they were sent")
+                .register(registry);
+        FunctionCounter.builder("usage.stream.rejected", rejected, LongAdder::sum)
+                .description("Stream requests refused because of the subscriber limits")
+                .register(registry);
+    }
+
+    private static final class Subscriber {
+
+        private final UUID subscriptionId;
+        private final SseEmitter emitter;
+        private final Map<UUID, PlanUsage> pending = new ConcurrentHashMap<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean heartbeat;
+
+        private Subscriber(UUID subscriptionId, SseEmitter emitter) {
+            this.subscriptionId = subscriptionId;
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.tvs.service;
+
+import com.tvs.dto.UserDto;
+import com.tvs.security.IdentityHeaders;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class UserClientService {
+
+    private static final long SERVICE_IDENTITY_TTL_MS = 60_000;
+
+    private final WebClient webClient;
+    private final IdentityHeaders identityHeaders;
+
+    @Value("${userservice.url}")
+    private String userServiceUrl;
+
+    @Value("${spring.application.name:usagemanager}")
+    private String serviceName;
+
+    /** Contact details of several users in one call to user-service, keyed by userId. */
+    public Map<UUID, UserDto> getUsers(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        List<UserDto> users = webClient.post()
+                .uri(userServiceUrl + "/api/users/batch")
+                // user-service checks the caller itself: sign as this service
+                .headers(h -> identityHeaders.forService(serviceName, SERVICE_IDENTITY_TTL_MS).forEach(h::set))
+                .bodyValue(userIds)
+                .retrieve()
+                .bodyToFlux(UserDto.class)
+                .collectList()
+                .block();
+        if (users == null) {
+            return Map.of();
+        }
+        return users.stream().collect(Collectors.toMap(UserDto::getUserId, Function.identity(), (a, b) -> a));
+    }
+}
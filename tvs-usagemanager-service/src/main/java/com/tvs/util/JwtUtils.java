@@ -1,22 +0,0 @@
-package com.tvs.util;
-
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import org.springframework.stereotype.Component;
-
-import java.nio.charset.StandardCharsets;
-
-@Component
-public class JwtUtils {
-
-    private static final String SECRET_KEY = "MySuperSecureJwtSecretKeyForProduction1234567890"; // SAME as in user-service & gateway
-
-    public String extractEmail(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY.getBytes(StandardCharsets.UTF_8))
-                .build()
-                .parseClaimsJws(token.replace("Bearer ", ""))
-                .getBody();
-        return claims.getSubject(); // email stored as 'sub'
-    }
-}
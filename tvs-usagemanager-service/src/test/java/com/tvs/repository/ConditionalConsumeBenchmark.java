@@ -0,0 +1,84 @@
+package com.tvs.repository;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a conditional check-and-increment UPDATE per consume, the approach the
+ * consume path used before UsageCounterEngine, with 8 threads consuming from one
+ * plan_usage row, each consume in its own transaction. Runs against in-memory H2 in
+ * MySQL mode; the baseline for UsageCounterEngineBenchmark, not a MySQL figure.
+ *
+ * Run with:
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ConditionalConsumeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ConditionalConsumeBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:consume-bench;MODE=MySQL;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1";
+
+    private static final String CONSUME =
+            "UPDATE plan_usage SET used_units = used_units + ? WHERE id = 1 AND used_units + ? <= total_units";
+
+    private final JdbcDataSource dataSource = new JdbcDataSource();
+
+    @Setup(Level.Iteration)
+    public void createRow() throws SQLException {
+        dataSource.setURL(URL);
+        try (Connection c = dataSource.getConnection(); Statement st = c.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS plan_usage");
+            st.execute("CREATE TABLE plan_usage (id INT PRIMARY KEY, total_units INT NOT NULL, used_units INT NOT NULL)");
+            st.execute("INSERT INTO plan_usage VALUES (1, " + Integer.MAX_VALUE / 2 + ", 0)");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Consumer {
+
+        Connection connection;
+        PreparedStatement consume;
+
+        @Setup(Level.Iteration)
+        public void open(ConditionalConsumeBenchmark bench) throws SQLException {
+            connection = bench.dataSource.getConnection();
+            consume = connection.prepareStatement(CONSUME);
+            consume.setInt(1, 1);
+            consume.setInt(2, 1);
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public int conditionalUpdate(Consumer consumer) throws SQLException {
+        return consumer.consume.executeUpdate();
+    }
+}
@@ -0,0 +1,68 @@
+package com.tvs.repository;
+
+import com.tvs.entity.FeatureUsageHistory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:history;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class FeatureUsageHistoryRepositoryTest {
+
+    @Autowired
+    private FeatureUsageHistoryRepository repository;
+
+    @Test
+    void keysetPagesVisitEveryRowOnceEvenWithTiedTimestamps() {
+        UUID subscriptionId = UUID.randomUUID();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<FeatureUsageHistory> rows = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            rows.add(FeatureUsageHistory.builder()
+                    .subscriptionId(subscriptionId)
+                    .featureId(UUID.randomUUID())
+                    .featureName("Swap")
+                    .unitsUsed(1)
+                    .usedAt(base.plusMinutes(i / 3)) // three rows share each timestamp
+                    .build());
+        }
+        repository.saveAll(rows);
+        repository.save(FeatureUsageHistory.builder()
+                .subscriptionId(UUID.randomUUID()).featureId(UUID.randomUUID())
+                .featureName("Swap").unitsUsed(1).usedAt(base).build());
+
+        Set<UUID> seen = new HashSet<>();
+        LocalDateTime previous = LocalDateTime.MAX;
+        List<FeatureUsageHistory> page = repository.findLatest(subscriptionId, "Swap", Limit.of(5));
+        while (!page.isEmpty()) {
+            for (FeatureUsageHistory h : page) {
+                assertTrue(seen.add(h.getId()), "row returned twice");
+                assertFalse(h.getUsedAt().isAfter(previous), "rows out of order");
+                previous = h.getUsedAt();
+            }
+            FeatureUsageHistory tail = page.get(page.size() - 1);
+            page = repository.findBefore(subscriptionId, "Swap", tail.getUsedAt(), tail.getId(), Limit.of(5));
+        }
+        assertEquals(23, seen.size());
+    }
+}
@@ -0,0 +1,60 @@
+package com.tvs.repository;
+
+import com.tvs.entity.UserSubscription;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:subscriptions;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserSubscriptionRepositoryTest {
+
+    @Autowired
+    private UserSubscriptionRepository repository;
+
+    @Test
+    void expiryUpdatesOnlyEndedActiveRowsInChunks() {
+        LocalDate today = LocalDate.now();
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) repository.save(subscription(userId, today.minusDays(1 + i), true));
+        repository.save(subscription(userId, today, true));
+        repository.save(subscription(userId, today.plusDays(30), true));
+        repository.save(subscription(userId, today.minusDays(10), false));
+
+        assertEquals(2, repository.deactivateExpired(today, LocalDateTime.now(), 2));
+        assertEquals(2, repository.deactivateExpired(today, LocalDateTime.now(), 2));
+        assertEquals(1, repository.deactivateExpired(today, LocalDateTime.now(), 2));
+        assertEquals(0, repository.deactivateExpired(today, LocalDateTime.now(), 2));
+
+        assertEquals(2, repository.findByUserIdAndIsActiveTrue(userId).size());
+    }
+
+    private static UserSubscription subscription(UUID userId, LocalDate endDate, boolean active) {
+        return UserSubscription.builder()
+                .userId(userId)
+                .planId(UUID.randomUUID())
+                .startDate(endDate.minusMonths(1))
+                .endDate(endDate)
+                .isActive(active)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.tvs.service;
+
+import com.tvs.entity.FeatureUsageHistory;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class FeatureUsageHistoryWriterTest {
+
+    @Test
+    void aBatchThatDoesNotFitQueuesNothing() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        List<FeatureUsageHistory> written = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            firstWriteStarted.countDown();
+            unblock.await();
+            written.addAll(invocation.<Collection<FeatureUsageHistory>>getArgument(1));
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(Collection.class), anyInt(), any());
+
+        FeatureUsageHistoryWriter writer = new FeatureUsageHistoryWriter(jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 3);
+        ReflectionTestUtils.setField(writer, "flushSize", 10);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 1L);
+        ReflectionTestUtils.setField(writer, "offerTimeoutMs", 10L);
+        writer.start();
+
+        // The writer takes the first row and blocks writing it, then the queue fills up
+        writer.submit(row("Swap"));
+        firstWriteStarted.await();
+        writer.submitAll(rows("Swap", 2));
+
+        List<FeatureUsageHistory> refused = rows("Roadside", 2);
+        assertThrows(IllegalStateException.class, () -> writer.submitAll(refused));
+
+        unblock.countDown();
+        writer.stop();
+        assertEquals(3, written.size());
+        assertTrue(written.stream().noneMatch(refused::contains));
+    }
+
+    private static List<FeatureUsageHistory> rows(String featureName, int count) {
+        return IntStream.range(0, count).mapToObj(i -> row(featureName)).toList();
+    }
+
+    private static FeatureUsageHistory row(String featureName) {
+        return FeatureUsageHistory.builder()
+                .subscriptionId(UUID.randomUUID())
+                .featureId(UUID.randomUUID())
+                .featureName(featureName)
+                .unitsUsed(1)
+                .usedAt(LocalDateTime.now())
+                .build();
+    }
+}
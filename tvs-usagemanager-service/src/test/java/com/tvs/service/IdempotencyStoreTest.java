@@ -0,0 +1,76 @@
+package com.tvs.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyStoreTest {
+
+    @Test
+    void concurrentRetriesRunTheActionOnce() throws Exception {
+        IdempotencyStore store = newStore();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return store.execute("sub:key-1", "consume:Swap", () -> {
+                    sleep(50);
+                    return "consumed #" + runs.incrementAndGet();
+                }, r -> true);
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("consumed #1", result.get());
+        }
+        pool.shutdown();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void reusingAKeyForADifferentRequestIsRejected() {
+        IdempotencyStore store = newStore();
+        store.execute("sub:key-2", "consume:Swap", () -> "ok", r -> true);
+        assertThrows(IdempotencyStore.KeyReusedException.class,
+                () -> store.execute("sub:key-2", "consume:Roadside", () -> "ok", r -> true));
+    }
+
+    @Test
+    void outcomesThatAreNotKeptCanBeRetried() {
+        IdempotencyStore store = newStore();
+        AtomicInteger runs = new AtomicInteger();
+        store.execute("sub:key-3", "consume:Swap", () -> runs.incrementAndGet() == 1 ? "error" : "ok", "ok"::equals);
+        assertEquals("ok", store.execute("sub:key-3", "consume:Swap", () -> runs.incrementAndGet() == 1 ? "error" : "ok", "ok"::equals));
+        assertEquals("ok", store.execute("sub:key-3", "consume:Swap", () -> "ran again", r -> true));
+        assertEquals(2, runs.get());
+    }
+
+    private static IdempotencyStore newStore() {
+        IdempotencyStore store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(store, "maxSize", 1000);
+        ReflectionTestUtils.setField(store, "inFlightWaitMs", 5_000L);
+        return store;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.tvs.service;
+
+import com.tvs.entity.OverageBillingRun;
+import com.tvs.entity.OverageCharge;
+import com.tvs.entity.PlanUsage;
+import com.tvs.repository.OverageBillingRunRepository;
+import com.tvs.repository.OverageChargeRepository;
+import com.tvs.repository.PlanUsageRepository;
+import com.tvs.repository.UsageJournalCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:overage;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OverageBillingServiceTest {
+
+    @Autowired
+    private PlanUsageRepository planUsageRepository;
+
+    @Autowired
+    private OverageChargeRepository chargeRepository;
+
+    @Autowired
+    private OverageBillingRunRepository runRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UsageJournalCheckpointRepository checkpointRepository;
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    void billsOnlyOverageNotBilledBefore() throws Exception {
+        UUID swap = UUID.randomUUID();
+        UUID roadside = UUID.randomUUID();
+        UUID subscriptionId = UUID.randomUUID();
+        PlanUsage over = planUsageRepository.save(usage(subscriptionId, swap, "Swap", 10, 13));
+        planUsageRepository.save(usage(subscriptionId, roadside, "Roadside", 5, 5));
+        for (int i = 0; i < 40; i++) {
+            planUsageRepository.save(usage(UUID.randomUUID(), swap, "Swap", 10, 11));
+        }
+
+        FeatureClientService features = mock(FeatureClientService.class);
+        when(features.getPriceTable()).thenReturn(Map.of(swap, new BigDecimal("12.50"), roadside, BigDecimal.ONE));
+        OverageBillingService service = new OverageBillingService(
+                jdbcTemplate, transactionTemplate, chargeRepository, runRepository, features);
+        ReflectionTestUtils.setField(service, "partitions", 16);
+        ReflectionTestUtils.setField(service, "parallelism", 4);
+        ReflectionTestUtils.setField(service, "chunkSize", 3);
+        service.start();
+
+        YearMonth october = YearMonth.of(2026, 10);
+        OverageBillingRun run = service.bill(october);
+        assertEquals(41, run.getCharges());
+        assertEquals(0, new BigDecimal("537.50").compareTo(run.getAmount()));
+
+        // Nothing new to bill: a second run charges nothing
+        assertEquals(0, service.bill(october).getCharges());
+
+        // Two more units in the same period are added to its existing line
+        over.setUsedUnits(15);
+        planUsageRepository.save(over);
+        assertEquals(1, service.bill(october).getCharges());
+        List<OverageCharge> charges = service.getCharges(subscriptionId, october);
+        assertEquals(1, charges.size());
+        assertEquals(5, charges.get(0).getOverageUnits());
+        assertEquals(0, new BigDecimal("62.50").compareTo(charges.get(0).getAmount()));
+        service.stop();
+    }
+
+    @Test
+    void billsUnitsConsumedPastQuotaOnPlansThatAllowOverage() throws Exception {
+        UUID swap = UUID.randomUUID();
+        UUID subscriptionId = UUID.randomUUID();
+        PlanUsage capped = usage(subscriptionId, swap, "Swap", 10, 0);
+        PlanUsage open = usage(subscriptionId, UUID.randomUUID(), "Charging", 10, 0);
+        open.setAllowOverage(true);
+        planUsageRepository.saveAll(List.of(capped, open));
+
+        UsageCounterEngine engine = new UsageCounterEngine(
+                planUsageRepository, checkpointRepository, jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(engine, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(engine, "flushIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(engine, "nodeId", "overage-node");
+        engine.start();
+        UsageCounterEngine.Counter swapCounter = engine.counter(subscriptionId, "Swap");
+        UsageCounterEngine.Counter chargingCounter = engine.counter(subscriptionId, "Charging");
+        assertEquals(10, engine.tryConsume(swapCounter, 10));
+        assertEquals(-1, engine.tryConsume(swapCounter, 1));
+        assertEquals(10, engine.tryConsume(chargingCounter, 10));
+        assertEquals(13, engine.tryConsume(chargingCounter, 3));
+        engine.flush();
+
+        FeatureClientService features = mock(FeatureClientService.class);
+        when(features.getPriceTable()).thenReturn(Map.of(swap, BigDecimal.ONE, open.getFeatureId(), new BigDecimal("4.25")));
+        OverageBillingService service = new OverageBillingService(
+                jdbcTemplate, transactionTemplate, chargeRepository, runRepository, features);
+        ReflectionTestUtils.setField(service, "partitions", 4);
+        ReflectionTestUtils.setField(service, "parallelism", 2);
+        ReflectionTestUtils.setField(service, "chunkSize", 100);
+        service.start();
+        assertNull(ReflectionTestUtils.getField(service, "workers")); // disabled: no threads until a run
+
+        YearMonth november = YearMonth.of(2026, 11);
+        assertEquals(1, service.bill(november).getCharges());
+        List<OverageCharge> charges = service.getCharges(subscriptionId, november);
+        assertEquals(1, charges.size());
+        assertEquals(open.getId(), charges.get(0).getUsageId());
+        assertEquals(3, charges.get(0).getOverageUnits());
+        assertEquals(0, new BigDecimal("12.75").compareTo(charges.get(0).getAmount()));
+        service.stop();
+        engine.stop();
+    }
+
+    private static PlanUsage usage(UUID subscriptionId, UUID featureId, String name, int total, int used) {
+        return PlanUsage.builder()
+                .subscriptionId(subscriptionId)
+                .featureId(featureId)
+                .featureName(name)
+                .totalUnits(total)
+                .usedUnits(used)
+                .build();
+    }
+}
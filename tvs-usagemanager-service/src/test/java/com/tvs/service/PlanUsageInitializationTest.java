@@ -0,0 +1,85 @@
+package com.tvs.service;
+
+import com.tvs.dto.FeatureResponse;
+import com.tvs.dto.PlanResponse;
+import com.tvs.entity.PlanUsage;
+import com.tvs.repository.PlanUsageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:initialize;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF",
+        "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PlanUsageInitializationTest {
+
+    @Autowired
+    private PlanUsageRepository planUsageRepository;
+
+    @Test
+    void concurrentFirstReadsInitializeEachFeatureOnce() throws Exception {
+        UUID planId = UUID.randomUUID();
+        UUID subscriptionId = UUID.randomUUID();
+        PlanClientService plans = mock(PlanClientService.class);
+        when(plans.getPlanSnapshot(planId)).thenReturn(plan(planId, "Swap", "Roadside"));
+        PlanUsageService service = new PlanUsageService(
+                planUsageRepository, null, null, plans, null, null, null, null, null);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<List<PlanUsage>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return service.initializeUsage(subscriptionId, planId);
+            }));
+        }
+        start.countDown();
+        for (Future<List<PlanUsage>> result : results) {
+            assertEquals(2, result.get().size());
+        }
+        pool.shutdown();
+
+        assertEquals(2, planUsageRepository.findBySubscriptionId(subscriptionId).size());
+        assertEquals(2, service.initializeUsage(subscriptionId, planId).size());
+    }
+
+    private static PlanResponse plan(UUID planId, String... featureNames) {
+        List<FeatureResponse> features = new ArrayList<>();
+        for (String name : featureNames) {
+            FeatureResponse feature = new FeatureResponse();
+            feature.setFeatureId(UUID.randomUUID());
+            feature.setName(name);
+            feature.setDefaultIncludedUnits(10);
+            features.add(feature);
+        }
+        PlanResponse plan = new PlanResponse();
+        plan.setPlanId(planId);
+        plan.setFeatures(features);
+        return plan;
+    }
+}
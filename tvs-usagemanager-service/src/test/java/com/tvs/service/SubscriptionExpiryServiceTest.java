@@ -0,0 +1,29 @@
+package com.tvs.service;
+
+import com.tvs.repository.UserSubscriptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubscriptionExpiryServiceTest {
+
+    @Test
+    void expiryStillRunsWhenRenewalFails() {
+        UserSubscriptionRepository repository = mock(UserSubscriptionRepository.class);
+        SubscriptionRenewalService renewalService = mock(SubscriptionRenewalService.class);
+        when(renewalService.renewExpiredSubscriptions()).thenThrow(new IllegalStateException("order-service down"));
+        SubscriptionExpiryService service = new SubscriptionExpiryService(repository, renewalService);
+        ReflectionTestUtils.setField(service, "renewalEnabled", true);
+        ReflectionTestUtils.setField(service, "chunkSize", 1000);
+
+        service.renewAndExpire();
+
+        verify(renewalService).renewExpiredSubscriptions();
+        verify(repository).deactivateExpired(any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,102 @@
+package com.tvs.service;
+
+import com.tvs.entity.SubscriptionRenewalCheckpoint;
+import com.tvs.entity.UserSubscription;
+import com.tvs.repository.SubscriptionRenewalCheckpointRepository;
+import com.tvs.repository.UserSubscriptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:renewal;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SubscriptionRenewalServiceTest {
+
+    @Autowired
+    private UserSubscriptionRepository repository;
+
+    @Autowired
+    private SubscriptionRenewalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void resumesAfterTheCheckpointAndRenewsEachSubscriptionOnce() {
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 7; i++) repository.save(subscription(today.minusDays(1 + i)));
+        repository.save(subscription(today.plusDays(10)));
+
+        // A previous run committed the first chunk of two before dying
+        List<UserSubscription> expired = repository.findAll().stream()
+                .filter(s -> s.getEndDate().isBefore(today))
+                .sorted(Comparator.comparing(UserSubscription::getId, SubscriptionRenewalServiceTest::compareAsStored))
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> repository.deactivateAll(
+                expired.subList(0, 2).stream().map(UserSubscription::getId).toList(), LocalDateTime.now()));
+        checkpointRepository.save(SubscriptionRenewalCheckpoint.builder()
+                .runDate(today).lastSubscriptionId(expired.get(1).getId()).renewed(2L).build());
+
+        RenewalNotifier notifier = mock(RenewalNotifier.class);
+        SubscriptionRenewalService service = new SubscriptionRenewalService(
+                repository, checkpointRepository, transactionTemplate, notifier);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+
+        assertEquals(5, service.renewExpiredSubscriptions());
+        verify(notifier, times(3)).renewed(anyList());
+        assertEquals(0, service.renewExpiredSubscriptions());
+
+        SubscriptionRenewalCheckpoint checkpoint = checkpointRepository.findById(today).orElseThrow();
+        assertEquals(7, checkpoint.getRenewed());
+        assertTrue(checkpoint.getFinishedAt() != null);
+        assertTrue(repository.findExpiredAfter(today, new UUID(0L, 0L), Limit.of(100)).isEmpty());
+        // 5 renewed now plus the one that had not expired
+        assertEquals(6, repository.findAll().stream()
+                .filter(s -> s.getIsActive() && !s.getEndDate().isBefore(today)).count());
+    }
+
+    // H2 and MySQL both order UUID keys by their unsigned bytes
+    private static int compareAsStored(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private static UserSubscription subscription(LocalDate endDate) {
+        return UserSubscription.builder()
+                .userId(UUID.randomUUID())
+                .planId(UUID.randomUUID())
+                .startDate(endDate.minusMonths(1))
+                .endDate(endDate)
+                .isActive(true)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.tvs.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UsageAlertNotifierTest {
+
+    @Test
+    void crossingsWithinTheWindowCoalesceIntoOneAlertPerFeature() {
+        UsageAlertNotifier notifier = newNotifier();
+        UUID sub = UUID.randomUUID();
+
+        notifier.consumed(sub, "Swap", 10, 7, 1);  // 70%: below every threshold
+        notifier.consumed(sub, "Swap", 10, 8, 1);  // crosses 80%
+        notifier.consumed(sub, "Swap", 10, 9, 1);  // no new crossing
+        notifier.consumed(sub, "Swap", 10, 10, 1); // crosses 100%
+        notifier.consumed(sub, "Roadside", 3, 3, 3); // crosses 80% and 100% at once
+
+        assertTrue(notifier.takeDue(System.currentTimeMillis()).isEmpty());
+
+        Map<UUID, List<UsageAlertNotifier.Alert>> due = notifier.takeDue(System.currentTimeMillis() + 60_000);
+        assertEquals(List.of(
+                new UsageAlertNotifier.Alert("Swap", 100, 10, 10),
+                new UsageAlertNotifier.Alert("Roadside", 100, 3, 3)), due.get(sub));
+        assertTrue(notifier.takeDue(System.currentTimeMillis() + 120_000).isEmpty());
+    }
+
+    private static UsageAlertNotifier newNotifier() {
+        UsageAlertNotifier notifier = new UsageAlertNotifier(null, null, null);
+        ReflectionTestUtils.setField(notifier, "thresholds", new int[]{80, 100});
+        ReflectionTestUtils.setField(notifier, "coalesceWindowMs", 60_000L);
+        ReflectionTestUtils.setField(notifier, "maxPending", 100);
+        return notifier;
+    }
+}
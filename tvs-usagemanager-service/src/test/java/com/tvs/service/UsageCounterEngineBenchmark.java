@@ -0,0 +1,97 @@
+package com.tvs.service;
+
+import com.tvs.entity.PlanUsage;
+import com.tvs.repository.PlanUsageRepository;
+import com.tvs.repository.UsageJournalCheckpointRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Throughput of UsageCounterEngine.tryConsume, including the journal append, with
+ * 8 threads consuming from one counter. Compare with ConditionalConsumeBenchmark,
+ * which runs the same contention through one UPDATE per consume.
+ *
+ * The database is stubbed out: it is only read when the counter is loaded and written
+ * by the background flush, which runs once an hour here.
+ *
+ * Run with:
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main UsageCounterEngineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class UsageCounterEngineBenchmark {
+
+    private Path journalDir;
+    private UsageCounterEngine engine;
+    private UsageCounterEngine.Counter counter;
+
+    @Setup(Level.Iteration)
+    public void start() throws Exception {
+        UUID subscriptionId = UUID.randomUUID();
+        PlanUsageRepository planUsageRepository = mock(PlanUsageRepository.class);
+        when(planUsageRepository.findBySubscriptionIdAndFeatureNameIgnoreCase(any(), anyString()))
+                .thenReturn(PlanUsage.builder()
+                        .id(UUID.randomUUID())
+                        .subscriptionId(subscriptionId)
+                        .featureId(UUID.randomUUID())
+                        .featureName("Swap")
+                        .totalUnits(Integer.MAX_VALUE / 2)
+                        .usedUnits(0)
+                        .build());
+
+        journalDir = Files.createTempDirectory("usage-journal-bench");
+        engine = new UsageCounterEngine(planUsageRepository, mock(UsageJournalCheckpointRepository.class),
+                mock(JdbcTemplate.class), mock(TransactionTemplate.class));
+        ReflectionTestUtils.setField(engine, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(engine, "flushIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(engine, "idleMs", 3_600_000L);
+        ReflectionTestUtils.setField(engine, "nodeId", "bench-node");
+        engine.start();
+        counter = engine.counter(subscriptionId, "Swap");
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() throws Exception {
+        engine.stop();
+        try (Stream<Path> files = Files.walk(journalDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int tryConsume() {
+        return engine.tryConsume(counter, 1);
+    }
+}
@@ -0,0 +1,171 @@
+package com.tvs.service;
+
+import com.tvs.entity.PlanUsage;
+import com.tvs.repository.PlanUsageRepository;
+import com.tvs.repository.UsageJournalCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:counters;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UsageCounterEngineTest {
+
+    @Autowired
+    private PlanUsageRepository planUsageRepository;
+
+    @Autowired
+    private UsageJournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    void unflushedChangesAreReplayedExactlyOnceAfterACrash() throws Exception {
+        PlanUsage usage = newUsage(100);
+
+        UsageCounterEngine first = newEngine("crash-node");
+        UsageCounterEngine.Counter counter = first.counter(usage.getSubscriptionId(), "swap");
+        for (int i = 0; i < 10; i++) first.tryConsume(counter, 1);
+        first.flush();
+        for (int i = 0; i < 5; i++) first.tryConsume(counter, 1);
+        assertEquals(10, usedInDb(usage));
+
+        // "Crash": abandon the engine without stop(), leaving 5 changes only in the journal
+        UsageCounterEngine second = newEngine("crash-node");
+        assertEquals(15, usedInDb(usage));
+        assertEquals(15, second.counter(usage.getSubscriptionId(), "Swap").getUsedUnits());
+
+        // A second restart must not apply the same records again
+        newEngine("crash-node");
+        assertEquals(15, usedInDb(usage));
+    }
+
+    @Test
+    void parallelConsumersNeverOverdraw() throws Exception {
+        int consumers = 64;
+        int attempts = 50_000;
+        int total = 1_000_000;
+        PlanUsage usage = newUsage(total);
+
+        UsageCounterEngine engine = newEngine("bench-node");
+        UsageCounterEngine.Counter counter = engine.counter(usage.getSubscriptionId(), "Swap");
+
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(consumers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < consumers; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int n = 0; n < attempts; n++) {
+                    if (engine.tryConsume(counter, 1) >= 0) granted.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        engine.flush();
+        assertEquals(total, granted.get());
+        assertEquals(total, counter.getUsedUnits());
+        assertEquals(total, usedInDb(usage));
+    }
+
+    @Test
+    void onlyCleanIdleCountersAreEvicted() throws Exception {
+        PlanUsage usage = newUsage(100);
+        UsageCounterEngine engine = newEngine("evict-node");
+        UsageCounterEngine.Counter counter = engine.counter(usage.getSubscriptionId(), "Swap");
+        engine.tryConsume(counter, 3);
+
+        assertEquals(0, engine.evictIdle()); // unflushed changes keep it in memory
+        engine.flush();
+        assertEquals(1, engine.evictIdle());
+
+        UsageCounterEngine.Counter reloaded = engine.counter(usage.getSubscriptionId(), "Swap");
+        assertNotSame(counter, reloaded);
+        assertEquals(3, reloaded.getUsedUnits());
+    }
+
+    @Test
+    void evictedCounterHeldByACallerForwardsToTheReloadedOne() throws Exception {
+        PlanUsage usage = newUsage(100);
+        UsageCounterEngine engine = newEngine("forward-node");
+        UsageCounterEngine.Counter held = engine.counter(usage.getSubscriptionId(), "Swap");
+        engine.tryConsume(held, 5);
+        engine.flush();
+        engine.evictIdle();
+
+        // e.g. a reservation hold ending after its counter went idle
+        UsageCounterEngine.Counter live = engine.release(held, 5);
+        assertNotSame(held, live);
+        assertEquals(2, engine.tryConsume(held, 2));
+        assertSame(live, engine.counter(usage.getSubscriptionId(), "Swap"));
+
+        engine.flush();
+        assertEquals(2, usedInDb(usage));
+    }
+
+    private PlanUsage newUsage(int totalUnits) {
+        return planUsageRepository.save(PlanUsage.builder()
+                .subscriptionId(UUID.randomUUID())
+                .featureId(UUID.randomUUID())
+                .featureName("Swap")
+                .totalUnits(totalUnits)
+                .usedUnits(0)
+                .build());
+    }
+
+    private int usedInDb(PlanUsage usage) {
+        return planUsageRepository.findById(usage.getId()).orElseThrow().getUsedUnits();
+    }
+
+    private UsageCounterEngine newEngine(String nodeId) throws Exception {
+        UsageCounterEngine engine = new UsageCounterEngine(
+                planUsageRepository, checkpointRepository, jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(engine, "journalDir", journalDir.resolve(nodeId).toString());
+        ReflectionTestUtils.setField(engine, "flushIntervalMs", 3_600_000L); // flush only when the test asks
+        ReflectionTestUtils.setField(engine, "nodeId", nodeId);
+        ReflectionTestUtils.setField(engine, "idleMs", 0L); // any clean counter is idle; evicted only when the test asks
+        engine.start();
+        return engine;
+    }
+}
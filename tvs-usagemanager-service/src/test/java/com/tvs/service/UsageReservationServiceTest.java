@@ -0,0 +1,123 @@
+package com.tvs.service;
+
+import com.tvs.entity.PlanUsage;
+import com.tvs.entity.UsageReservation;
+import com.tvs.repository.PlanUsageRepository;
+import com.tvs.repository.UsageJournalCheckpointRepository;
+import com.tvs.repository.UsageReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservations;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UsageReservationServiceTest {
+
+    @Autowired
+    private PlanUsageRepository planUsageRepository;
+
+    @Autowired
+    private UsageJournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private UsageReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    void heldUnitsCountAgainstAvailabilityUntilTheHoldExpires() throws Exception {
+        PlanUsage usage = newUsage(3);
+        UsageCounterEngine engine = newEngine();
+        UsageReservationService reservations = newService(engine);
+        UsageCounterEngine.Counter counter = engine.counter(usage.getSubscriptionId(), "Swap");
+
+        UsageReservation hold = reservations.reserve(usage.getSubscriptionId(), "swap", 2, 300L);
+        assertNotNull(hold);
+        assertEquals(2, counter.getUsedUnits());
+        assertNull(reservations.reserve(usage.getSubscriptionId(), "Swap", 2, 300L));
+
+        Thread.sleep(1_000);
+        assertEquals(0, counter.getUsedUnits());
+        assertEquals(0, reservationRepository.count());
+        assertThrows(NoSuchElementException.class, () -> reservations.release(hold.getId()));
+        reservations.stop();
+    }
+
+    @Test
+    void openHoldsSurviveARestartAndCanStillBeReleased() throws Exception {
+        PlanUsage usage = newUsage(5);
+        UsageCounterEngine engine = newEngine();
+        UsageReservationService first = newService(engine);
+        UsageReservation hold = first.reserve(usage.getSubscriptionId(), "Swap", 4, 60_000L);
+        first.stop();
+
+        UsageReservationService second = newService(engine);
+        assertEquals(hold.getSubscriptionId(), second.getReservation(hold.getId()).getSubscriptionId());
+        second.release(hold.getId());
+        assertEquals(0, engine.counter(usage.getSubscriptionId(), "Swap").getUsedUnits());
+        second.stop();
+    }
+
+    private PlanUsage newUsage(int totalUnits) {
+        return planUsageRepository.save(PlanUsage.builder()
+                .subscriptionId(UUID.randomUUID())
+                .featureId(UUID.randomUUID())
+                .featureName("Swap")
+                .totalUnits(totalUnits)
+                .usedUnits(0)
+                .build());
+    }
+
+    private UsageCounterEngine newEngine() throws Exception {
+        UsageCounterEngine engine = new UsageCounterEngine(
+                planUsageRepository, checkpointRepository, jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(engine, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(engine, "flushIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(engine, "nodeId", "reservation-node");
+        engine.start();
+        return engine;
+    }
+
+    // Commit is not exercised here, so no history writer is needed
+    private UsageReservationService newService(UsageCounterEngine engine) {
+        UsageReservationService service = new UsageReservationService(
+                reservationRepository, engine, null,
+                mock(UsageAlertNotifier.class), mock(UsageStreamBroadcaster.class));
+        ReflectionTestUtils.setField(service, "defaultTtlMs", 300_000L);
+        ReflectionTestUtils.setField(service, "maxTtlMs", 1_800_000L);
+        service.start();
+        return service;
+    }
+}
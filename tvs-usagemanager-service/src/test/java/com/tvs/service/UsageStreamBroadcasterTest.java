@@ -0,0 +1,34 @@
+package com.tvs.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UsageStreamBroadcasterTest {
+
+    @Test
+    void streamLimitsAreEnforcedAndAFailedSnapshotFreesItsSlot() throws Exception {
+        UsageStreamBroadcaster broadcaster = new UsageStreamBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 2);
+        ReflectionTestUtils.setField(broadcaster, "maxPerSubscription", 1);
+        ReflectionTestUtils.setField(broadcaster, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(broadcaster, "heartbeatMs", 60_000L);
+        ReflectionTestUtils.setField(broadcaster, "senderThreads", 1);
+        broadcaster.start();
+
+        UUID first = UUID.randomUUID();
+        assertThrows(RuntimeException.class, () -> broadcaster.subscribe(first, () -> {
+            throw new RuntimeException("Subscription not found");
+        }));
+        assertNotNull(broadcaster.subscribe(first, List::of));
+        assertThrows(IllegalStateException.class, () -> broadcaster.subscribe(first, List::of));
+        assertNotNull(broadcaster.subscribe(UUID.randomUUID(), List::of));
+        assertThrows(IllegalStateException.class, () -> broadcaster.subscribe(UUID.randomUUID(), List::of));
+        broadcaster.stop();
+    }
+}
@@ -2,13 +2,18 @@ package com.tvs.controller;
 
 import com.tvs.dto.UserProfileRequest;
 import com.tvs.dto.UserResponse;
+import com.tvs.security.Identity;
+import com.tvs.security.IdentityHeaders;
+import com.tvs.security.RequestAuthenticator;
 import com.tvs.service.UserService;
 import com.tvs.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -19,8 +24,11 @@ import java.util.UUID;
 
 public class UserController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final RequestAuthenticator requestAuthenticator;
 
     // ✅ Get own profile using JWT
     @GetMapping("/profile")
@@ -50,6 +58,25 @@ public class UserController {
         return ResponseEntity.ok(userService.getProfile(userId));
     }
 
+    // ✅ Get several users by ID in one call (contact details only, no plans).
+    // Called directly by other services, so the caller is checked here and not only at the gateway
+    @PostMapping("/batch")
+    public ResponseEntity<?> getUsersByIds(HttpServletRequest request, @RequestBody List<UUID> userIds) {
+        Identity caller;
+        try {
+            caller = requestAuthenticator.authenticate(request::getHeader);
+        } catch (Exception e) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized or invalid token"));
+        }
+        if (!caller.hasRole("ADMIN") && !caller.hasRole(IdentityHeaders.SERVICE_ROLE)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Forbidden: admin or service identity required"));
+        }
+        if (userIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BATCH_SIZE + " ids per request"));
+        }
+        return ResponseEntity.ok(userService.getUsersByIds(new LinkedHashSet<>(userIds)));
+    }
+
     // ✅ NEW: Get all users (Admin only)
     @GetMapping("/all")
     public ResponseEntity<List<UserResponse>> getAllUsers(@RequestHeader("Authorization") String authHeader) {
@@ -22,6 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
@@ -211,6 +212,17 @@ public class UserService {
         return mapToResponse(user, plans);
     }
 
+    /**
+     * Contact details of several users in one query, in no particular order.
+     * Unknown ids are skipped. Plans are not included (they would cost one
+     * order-service call per user).
+     */
+    public List<UserResponse> getUsersByIds(Collection<UUID> userIds) {
+        return userRepository.findAllById(userIds).stream()
+                .map(user -> mapToResponse(user, null))
+                .toList();
+    }
+
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(user -> {
@@ -1,57 +1,43 @@
 package com.tvs.util;
 
+import com.tvs.security.JwtVerifier;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
-import java.security.Key;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final JwtVerifier jwtVerifier;
 
     @Value("${jwt.expiration}")
     private long expiration; // milliseconds
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-    }
-
-    public String generateToken(String email, String role) {
+    // userId is carried in the token so other services can identify the caller without a lookup
+    public String generateToken(String email, String role, UUID userId) {
         return Jwts.builder()
                 .setSubject(email)
-                .claim("roles", List.of(role))
+                .claim(JwtVerifier.ROLES_CLAIM, List.of(role))
+                .claim(JwtVerifier.USER_ID_CLAIM, userId.toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(jwtVerifier.signingKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
     // New methods to extract info from JWT
     public String extractEmail(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return jwtVerifier.verify(token).email();
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> extractRoles(String token) {
-        Object roles = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("roles");
-        return roles != null ? (List<String>) roles : List.of();
+        return jwtVerifier.verify(token).roles();
     }
 }